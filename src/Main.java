@@ -1,4 +1,5 @@
 import controller.HttpTaskServer;
+import controller.ServerConfig;
 import manager.FileBackedTaskManager;
 import manager.InMemoryTaskManager;
 import manager.Managers;
@@ -169,7 +170,7 @@ public class Main {
                 .with(Subtask::setEpicId, idEpic2)
                 .build());
 
-        HttpTaskServer httpTaskServer = new HttpTaskServer(taskManager);
+        HttpTaskServer httpTaskServer = new HttpTaskServer(taskManager, ServerConfig.fromSystemProperties());
         httpTaskServer.startServer();
     }
 }
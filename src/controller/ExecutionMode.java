@@ -0,0 +1,10 @@
+package controller;
+
+public enum ExecutionMode {
+    // все запросы обрабатываются потоком-диспетчером HttpServer (поведение по умолчанию)
+    DISPATCHER,
+    FIXED_POOL,
+    VIRTUAL_THREADS,
+    // фиксированный пул с ограниченной очередью, при переполнении - 503 и Retry-After
+    BOUNDED_QUEUE
+}
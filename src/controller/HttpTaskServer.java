@@ -1,31 +1,120 @@
 package controller;
 
+import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import handler.*;
+import manager.ConcurrentTaskManager;
+import manager.HistorySession;
 import manager.TaskManager;
 import java.io.IOException;
 import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class HttpTaskServer {
-    private static final int PORT = 8080;
     private final HttpServer server;
     private final TaskManager manager;
+    private final ServerConfig config;
+    private final ExecutorService executor;
+    private final EventsHandler eventsHandler;
 
     public HttpTaskServer(TaskManager taskManager) throws IOException {
+        this(taskManager, new ServerConfig());
+    }
+
+    public HttpTaskServer(TaskManager taskManager, ServerConfig config) throws IOException {
         this.manager = taskManager;
-        server = HttpServer.create(new InetSocketAddress(PORT), 0);
-        server.createContext("/tasks", new TaskHandler(manager));
-        server.createContext("/subtasks", new SubtasksHandler(manager));
-        server.createContext("/epics", new EpicsHandler(manager));
-        server.createContext("/history", new HistoryHandler(manager));
-        server.createContext("/prioritized", new PrioritizedHandler(manager));
+        this.config = config;
+        server = HttpServer.create(new InetSocketAddress(config.getPort()), config.getBacklog());
+        executor = createExecutor(config);
+        server.setExecutor(executor);
+        if (executor != null && !(manager instanceof ConcurrentTaskManager)) {
+            System.out.println("WARN: Многопоточный режим " + config.getExecutionMode()
+                    + " используется с менеджером, не рассчитанным на конкурентный доступ");
+        }
+        register("/tasks", new TaskHandler(manager));
+        register("/subtasks", new SubtasksHandler(manager));
+        register("/epics", new EpicsHandler(manager));
+        register("/history", new HistoryHandler(manager));
+        register("/prioritized", new PrioritizedHandler(manager));
+        eventsHandler = new EventsHandler(manager, config.getEventBufferSize());
+        eventsHandler.setMaxSubscribers(getMaxEventSubscribers(config));
+        eventsHandler.setHeartbeatMillis(config.getEventHeartbeatMillis());
+        register("/events", eventsHandler);
     }
 
     public void stopServer() {
+        // открытые потоки событий завершаются сами, иначе они держали бы потоки обработки
+        eventsHandler.close();
         server.stop(0);
+        if (executor != null) {
+            executor.shutdownNow();
+        }
     }
 
     public void startServer() {
         server.start();
     }
+
+    public long getDroppedEventSubscriberCount() {
+        return eventsHandler.getDroppedSubscriberCount();
+    }
+
+    public long getShedRequestCount() {
+        return executor instanceof SheddingExecutor sheddingExecutor ? sheddingExecutor.getShedCount() : 0;
+    }
+
+    // null - запросы обрабатывает сам поток-диспетчер HttpServer
+    private static ExecutorService createExecutor(ServerConfig config) {
+        return switch (config.getExecutionMode()) {
+            case DISPATCHER -> null;
+            case FIXED_POOL -> Executors.newFixedThreadPool(config.getThreads());
+            case VIRTUAL_THREADS -> Executors.newVirtualThreadPerTaskExecutor();
+            case BOUNDED_QUEUE -> new SheddingExecutor(config.getThreads(), config.getQueueCapacity());
+        };
+    }
+
+    // подписка держит поток обработки: в DISPATCHER она остановила бы сервер, в пулах один поток
+    // остается для обычных запросов
+    private static int getMaxEventSubscribers(ServerConfig config) {
+        return switch (config.getExecutionMode()) {
+            case DISPATCHER -> 0;
+            case FIXED_POOL, BOUNDED_QUEUE -> Math.min(config.getMaxEventSubscribers(), config.getThreads() - 1);
+            case VIRTUAL_THREADS -> config.getMaxEventSubscribers();
+        };
+    }
+
+    private <H extends BaseHttpHandler & HttpHandler> void register(String path, H handler) {
+        handler.setPrettyJson(config.isPrettyJson());
+        handler.setCompressionThreshold(config.getCompressionThreshold());
+        server.createContext(path, wrap(handler));
+    }
+
+    private HttpHandler wrap(HttpHandler handler) {
+        // ключ раздела истории просмотров действует на время обработки запроса
+        HttpHandler withSession = exchange -> {
+            HistorySession.set(exchange.getRequestHeaders().getFirst(config.getHistorySessionHeader()));
+            try {
+                handler.handle(exchange);
+            } finally {
+                HistorySession.clear();
+            }
+        };
+        if (config.getExecutionMode() != ExecutionMode.BOUNDED_QUEUE) {
+            return withSession;
+        }
+        return exchange -> {
+            if (SheddingExecutor.isShed()) {
+                byte[] resp = "Сервер перегружен, повторите запрос позже".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+                exchange.getResponseHeaders().add("Retry-After", String.valueOf(config.getRetryAfterSeconds()));
+                exchange.sendResponseHeaders(503, resp.length);
+                exchange.getResponseBody().write(resp);
+                exchange.close();
+            } else {
+                withSession.handle(exchange);
+            }
+        };
+    }
 }
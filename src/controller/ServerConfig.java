@@ -0,0 +1,143 @@
+package controller;
+
+public class ServerConfig {
+    private int port = 8080;
+    private int backlog = 0;
+    private ExecutionMode executionMode = ExecutionMode.DISPATCHER;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int queueCapacity = 100;
+    private int retryAfterSeconds = 1;
+    // false - компактный JSON; отформатированный можно запросить параметром ?pretty
+    private boolean prettyJson = false;
+    // ответы от этого размера в байтах сжимаются gzip/deflate по Accept-Encoding, -1 - без сжатия
+    private int compressionThreshold = 1024;
+    // заголовок с ключом клиента для раздельной истории просмотров (PartitionedHistoryManager)
+    private String historySessionHeader = "X-Session-Id";
+    // поток /events: буфер событий одного подписчика (переполнение отключает его), предел подписчиков
+    // и интервал пинга в тишине
+    private int eventBufferSize = 256;
+    private int maxEventSubscribers = 16;
+    private long eventHeartbeatMillis = 15_000;
+
+    public ServerConfig() {
+    }
+
+    // настройки из системных свойств, например -Dkanban.port=8081 -Dkanban.executor=VIRTUAL_THREADS
+    public static ServerConfig fromSystemProperties() {
+        ServerConfig config = new ServerConfig();
+        config.setPort(Integer.getInteger("kanban.port", config.getPort()));
+        config.setBacklog(Integer.getInteger("kanban.backlog", config.getBacklog()));
+        config.setExecutionMode(ExecutionMode.valueOf(
+                System.getProperty("kanban.executor", config.getExecutionMode().name())));
+        config.setThreads(Integer.getInteger("kanban.threads", config.getThreads()));
+        config.setQueueCapacity(Integer.getInteger("kanban.queue", config.getQueueCapacity()));
+        config.setRetryAfterSeconds(Integer.getInteger("kanban.retryAfter", config.getRetryAfterSeconds()));
+        config.setPrettyJson(Boolean.getBoolean("kanban.prettyJson"));
+        config.setCompressionThreshold(Integer.getInteger("kanban.compressionThreshold",
+                config.getCompressionThreshold()));
+        config.setHistorySessionHeader(System.getProperty("kanban.historySessionHeader",
+                config.getHistorySessionHeader()));
+        config.setEventBufferSize(Integer.getInteger("kanban.events.bufferSize", config.getEventBufferSize()));
+        config.setMaxEventSubscribers(Integer.getInteger("kanban.events.maxSubscribers",
+                config.getMaxEventSubscribers()));
+        config.setEventHeartbeatMillis(Long.getLong("kanban.events.heartbeatMillis",
+                config.getEventHeartbeatMillis()));
+        return config;
+    }
+
+    public int getPort() {
+        return port;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public int getBacklog() {
+        return backlog;
+    }
+
+    public void setBacklog(int backlog) {
+        this.backlog = backlog;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+
+    public void setRetryAfterSeconds(int retryAfterSeconds) {
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public boolean isPrettyJson() {
+        return prettyJson;
+    }
+
+    public void setPrettyJson(boolean prettyJson) {
+        this.prettyJson = prettyJson;
+    }
+
+    public int getCompressionThreshold() {
+        return compressionThreshold;
+    }
+
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    public String getHistorySessionHeader() {
+        return historySessionHeader;
+    }
+
+    public void setHistorySessionHeader(String historySessionHeader) {
+        this.historySessionHeader = historySessionHeader;
+    }
+
+    public int getEventBufferSize() {
+        return eventBufferSize;
+    }
+
+    public void setEventBufferSize(int eventBufferSize) {
+        this.eventBufferSize = eventBufferSize;
+    }
+
+    public int getMaxEventSubscribers() {
+        return maxEventSubscribers;
+    }
+
+    public void setMaxEventSubscribers(int maxEventSubscribers) {
+        this.maxEventSubscribers = maxEventSubscribers;
+    }
+
+    public long getEventHeartbeatMillis() {
+        return eventHeartbeatMillis;
+    }
+
+    public void setEventHeartbeatMillis(long eventHeartbeatMillis) {
+        this.eventHeartbeatMillis = eventHeartbeatMillis;
+    }
+}
@@ -0,0 +1,40 @@
+package controller;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// пул с ограниченной очередью. Отклоненный запрос выполняется в потоке-диспетчере с пометкой,
+// по которой обработчик сразу отвечает 503, не читая тело и не обращаясь к менеджеру
+class SheddingExecutor extends ThreadPoolExecutor {
+    private static final ThreadLocal<Boolean> shed = ThreadLocal.withInitial(() -> false);
+    private final AtomicLong shedCount = new AtomicLong();
+
+    SheddingExecutor(int threads, int queueCapacity) {
+        super(threads, threads, 0L, TimeUnit.MILLISECONDS, createQueue(queueCapacity));
+        setRejectedExecutionHandler((exchange, executor) -> {
+            shedCount.incrementAndGet();
+            shed.set(true);
+            try {
+                exchange.run();
+            } finally {
+                shed.set(false);
+            }
+        });
+    }
+
+    static boolean isShed() {
+        return shed.get();
+    }
+
+    long getShedCount() {
+        return shedCount.get();
+    }
+
+    private static BlockingQueue<Runnable> createQueue(int capacity) {
+        return capacity > 0 ? new ArrayBlockingQueue<>(capacity) : new SynchronousQueue<>();
+    }
+}
@@ -4,29 +4,70 @@ import adapter.DurationAdapter;
 import adapter.LocalDateTimeAdapter;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonIOException;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+import com.google.gson.stream.JsonWriter;
 import com.sun.net.httpserver.HttpExchange;
+import manager.BatchResult;
 import manager.InMemoryTaskManager;
+import manager.ResourceVersion;
+import manager.TaskLookup;
 import manager.TaskManager;
+import manager.TaskPage;
+import manager.TaskQuery;
 import task.Task;
+import task.TaskStatus;
+import util.ObjectBuilder;
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 public abstract class BaseHttpHandler {
 
+    // отформатированный JSON с null-полями - для отладки
     public static final Gson gson;
+    // компактный JSON без null-полей - ответ по умолчанию
+    public static final Gson compactGson;
+    private static final int STREAM_BUFFER_SIZE = 8192;
+    // поля задач, которые можно запросить параметром fields
+    private static final Set<String> PAGE_FIELDS = Set.of("id", "name", "description", "status", "duration",
+            "startTime", "endTime", "epicId");
+    // параметры поиска задач
+    private static final List<String> QUERY_PARAMS = List.of("status", "from", "to", "epicId", "name");
 
     static {
         GsonBuilder gsonBuilder = new GsonBuilder();
-        gsonBuilder.setPrettyPrinting();
-        gsonBuilder.serializeNulls();
         gsonBuilder.registerTypeAdapter(LocalDateTime.class, new LocalDateTimeAdapter());
         gsonBuilder.registerTypeAdapter(Duration.class, new DurationAdapter());
+        compactGson = gsonBuilder.create();
+        gsonBuilder.setPrettyPrinting();
+        gsonBuilder.serializeNulls();
         gson = gsonBuilder.create();
     }
 
     protected final TaskManager taskManager;
+    private boolean prettyJson;
+    private int compressionThreshold = -1;
 
     public BaseHttpHandler(TaskManager taskManager) {
         this.taskManager = taskManager;
@@ -36,24 +77,156 @@ public abstract class BaseHttpHandler {
         return gson;
     }
 
+    public void setPrettyJson(boolean prettyJson) {
+        this.prettyJson = prettyJson;
+    }
+
+    // минимальный размер ответа в байтах для сжатия, -1 - не сжимать
+    public void setCompressionThreshold(int compressionThreshold) {
+        this.compressionThreshold = compressionThreshold;
+    }
+
+    // формат ответа: параметр ?pretty[=true|false] или Accept: application/json;pretty=true,
+    // иначе настройка сервера
+    protected Gson getGson(HttpExchange exchange) {
+        String pretty = getQueryParams(exchange).get("pretty");
+        if (pretty == null) {
+            String accept = exchange.getRequestHeaders().getFirst("Accept");
+            if (accept != null) {
+                for (String parameter : accept.split("[,;]")) {
+                    String[] keyValue = parameter.trim().split("=", 2);
+                    if (keyValue.length == 2 && keyValue[0].trim().equals("pretty")) {
+                        pretty = keyValue[1].trim();
+                    }
+                }
+            }
+        }
+        boolean usePretty = pretty == null ? prettyJson : pretty.isEmpty() || Boolean.parseBoolean(pretty);
+        return usePretty ? gson : compactGson;
+    }
+
     protected Integer getIdFromPath(HttpExchange exchange) {
-        return Integer.parseInt(exchange.getRequestURI().getPath().split("/")[2]);
+        return Router.parseIntSegment(exchange.getRequestURI().getPath(), 1);
+    }
+
+    protected Map<String, String> getQueryParams(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null || query.isBlank()) {
+            return params;
+        }
+        for (String param : query.split("&")) {
+            int separator = param.indexOf('=');
+            if (separator > 0) {
+                params.put(URLDecoder.decode(param.substring(0, separator), StandardCharsets.UTF_8),
+                        URLDecoder.decode(param.substring(separator + 1), StandardCharsets.UTF_8));
+            } else if (separator < 0 && !param.isEmpty()) {
+                // параметр-флаг без значения, например ?pretty
+                params.put(URLDecoder.decode(param, StandardCharsets.UTF_8), "");
+            }
+        }
+        return params;
     }
 
     protected Boolean hasDatesIntersect(Task task) {
-        if (taskManager.getClass() == InMemoryTaskManager.class) {
-            return ((InMemoryTaskManager) taskManager).hasDateIntersect(task);
+        if (taskManager instanceof InMemoryTaskManager inMemoryTaskManager) {
+            return inMemoryTaskManager.hasDateIntersect(task);
         } else {
             return null;
         }
     }
 
-    protected abstract EndPoint getEndPoint(String requestPath, HttpMethod method);
+    // условный GET: ETag из версии ресурса и строки запроса (от нее зависит содержимое ответа) и Last-Modified.
+    // Если клиент прислал совпадающий If-None-Match или, без него, If-Modified-Since не раньше изменения,
+    // отправляется 304 без тела и true. Версию нужно получить до чтения данных ответа: изменение, случившееся
+    // между ними, тогда попадет в ответ со старой меткой, и клиент просто запросит его еще раз
+    // GET задачи по идентификатору: условный запрос проверяется по версии до поиска задачи,
+    // поэтому ответ 304 не считается просмотром и не попадает в историю
+    protected void sendTaskById(HttpExchange exchange, int id, Class<? extends Task> type) throws IOException {
+        ResourceVersion version = taskManager.getTaskVersion(id, type);
+        if (version == null) {
+            sendNotFound(exchange);
+            return;
+        }
+        if (sendNotModified(exchange, version)) {
+            return;
+        }
+        TaskLookup lookup = taskManager.lookupTask(id, type, true);
+        if (lookup.isFound()) {
+            sendText(exchange, getGson(exchange).toJson(lookup.task()), 200);
+        } else {
+            // задачу удалили между проверкой версии и поиском
+            sendNotFound(exchange);
+        }
+    }
+
+    protected boolean sendNotModified(HttpExchange exchange, ResourceVersion version) throws IOException {
+        String query = exchange.getRequestURI().getRawQuery();
+        // метка слабая: pretty и сжатие меняют байты ответа, но не его содержимое
+        String etag = "W/\"" + version.tag() + (query == null ? "" : "-" + Integer.toHexString(query.hashCode()))
+                + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Last-Modified", DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(Instant.ofEpochMilli(version.modifiedMillis()).atZone(ZoneOffset.UTC)));
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        boolean notModified;
+        if (ifNoneMatch != null) {
+            notModified = matchesETag(ifNoneMatch, etag);
+        } else if (ifModifiedSince != null) {
+            // дата передается с точностью до секунды: изменение в ту же секунду, что и If-Modified-Since,
+            // могло произойти уже после ответа клиенту, поэтому 304 - только если секунда изменения раньше
+            try {
+                notModified = version.modifiedMillis() / 1000 < ZonedDateTime.parse(ifModifiedSince,
+                        DateTimeFormatter.RFC_1123_DATE_TIME).toEpochSecond();
+            } catch (DateTimeParseException e) {
+                notModified = false;
+            }
+        } else {
+            notModified = false;
+        }
+        if (notModified) {
+            exchange.sendResponseHeaders(304, -1);
+            exchange.close();
+        }
+        return notModified;
+    }
+
+    // слабое сравнение: префикс W/ не учитывается, * совпадает с любой меткой
+    private static boolean matchesETag(String ifNoneMatch, String etag) {
+        String opaqueTag = etag.substring(2);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || (tag.startsWith("W/") ? tag.substring(2) : tag).equals(opaqueTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    protected EndPoint getEndPoint(HttpExchange exchange) {
+        return Router.DEFAULT.match(exchange.getRequestMethod(), exchange.getRequestURI().getPath());
+    }
 
+    // маршрут не найден: 404, если нет такого пути, 405 с заголовком Allow, если путь не поддерживает метод;
+    // на OPTIONS для существующего пути - 204 со списком методов
     protected void handleIncorrectRequest(HttpExchange exchange) throws IOException {
-        byte[] resp = "Такого эндпоинта не существует".getBytes(StandardCharsets.UTF_8);
+        Set<HttpMethod> allowed = Router.DEFAULT.getAllowedMethods(exchange.getRequestURI().getPath());
+        if (!allowed.isEmpty()) {
+            exchange.getResponseHeaders().add("Allow", allowed.stream()
+                    .map(Enum::name)
+                    .collect(Collectors.joining(", ")));
+            if (HttpMethod.OPTIONS == HttpMethod.of(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(204, -1);
+                exchange.close();
+                return;
+            }
+        }
+        byte[] resp = (allowed.isEmpty() ? "Такого эндпоинта не существует" : "Метод не поддерживается для "
+                + exchange.getRequestURI().getPath()).getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        exchange.sendResponseHeaders(404, resp.length);
+        exchange.sendResponseHeaders(allowed.isEmpty() ? 404 : 405, resp.length);
         exchange.getResponseBody().write(resp);
         exchange.close();
     }
@@ -61,11 +234,207 @@ public abstract class BaseHttpHandler {
     protected void sendText(HttpExchange exchange, String text, int status) throws IOException {
         byte[] resp = text.getBytes(StandardCharsets.UTF_8);
         exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
-        exchange.sendResponseHeaders(status, resp.length);
-        exchange.getResponseBody().write(resp);
+        try (OutputStream body = openResponseBody(exchange, status)) {
+            body.write(resp);
+        }
         exchange.close();
     }
 
+    // ответ меньше порога отправляется без сжатия, больший - сжимается потоком, если клиент это поддерживает
+    protected OutputStream openResponseBody(HttpExchange exchange, int status) {
+        String encoding = negotiateEncoding(exchange);
+        if (encoding == null) {
+            return new ResponseBodyStream(exchange, status, null, STREAM_BUFFER_SIZE);
+        }
+        exchange.getResponseHeaders().add("Vary", "Accept-Encoding");
+        return new ResponseBodyStream(exchange, status, encoding, compressionThreshold);
+    }
+
+    // gzip или deflate из Accept-Encoding с учетом q-значений, null - без сжатия
+    private String negotiateEncoding(HttpExchange exchange) {
+        String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+        if (compressionThreshold < 0 || acceptEncoding == null) {
+            return null;
+        }
+        double gzip = -1;
+        double deflate = -1;
+        double any = -1;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            double quality = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            switch (parts[0].trim().toLowerCase()) {
+                case "gzip", "x-gzip" -> gzip = quality;
+                case "deflate" -> deflate = quality;
+                case "*" -> any = quality;
+                default -> {
+                }
+            }
+        }
+        gzip = gzip < 0 ? any : gzip;
+        deflate = deflate < 0 ? any : deflate;
+        if (gzip > 0 && gzip >= deflate) {
+            return "gzip";
+        }
+        return deflate > 0 ? "deflate" : null;
+    }
+
+    // список сериализуется прямо в тело ответа: память на запрос не зависит от размера списка.
+    // После отправки заголовков сообщить об ошибке кодом ответа уже нельзя - ответ просто обрывается
+    protected void sendJson(HttpExchange exchange, Iterable<?> items, int status) throws IOException {
+        Gson gson = getGson(exchange);
+        exchange.getResponseHeaders().add("Content-Type", "application/json;charset=utf-8");
+        try (JsonWriter writer = gson.newJsonWriter(new BufferedWriter(
+                new OutputStreamWriter(openResponseBody(exchange, status), StandardCharsets.UTF_8),
+                STREAM_BUFFER_SIZE))) {
+            writer.beginArray();
+            for (Object item : items) {
+                if (item == null) {
+                    writer.nullValue();
+                } else {
+                    gson.toJson(item, item.getClass(), writer);
+                }
+            }
+            writer.endArray();
+        } catch (IOException | JsonIOException e) {
+            System.out.println("ERROR: Ответ прерван: " + e.getMessage());
+        } finally {
+            exchange.close();
+        }
+    }
+
+    // ?status=IN_PROGRESS&from=2025-03-01T00:00&to=2025-03-08T00:00&epicId=1&name=Отчет - поиск по индексам менеджера
+    protected boolean isQueryRequest(HttpExchange exchange) {
+        Map<String, String> params = getQueryParams(exchange);
+        return QUERY_PARAMS.stream().anyMatch(params::containsKey);
+    }
+
+    protected void sendQueryResult(HttpExchange exchange, Class<? extends Task> type) throws IOException {
+        Map<String, String> params = getQueryParams(exchange);
+        TaskQuery query;
+        try {
+            query = ObjectBuilder.of(TaskQuery::new)
+                    .with(TaskQuery::setType, type)
+                    .with(TaskQuery::setStatus, params.containsKey("status")
+                            ? TaskStatus.valueOf(params.get("status")) : null)
+                    .with(TaskQuery::setFrom, params.containsKey("from") ? LocalDateTime.parse(params.get("from")) : null)
+                    .with(TaskQuery::setTo, params.containsKey("to") ? LocalDateTime.parse(params.get("to")) : null)
+                    .with(TaskQuery::setEpicId, params.containsKey("epicId")
+                            ? Integer.valueOf(params.get("epicId")) : null)
+                    .with(TaskQuery::setNamePrefix, params.get("name"))
+                    .build();
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            sendText(exchange, "Не удается обработать запрос. Проверьте параметры status, from, to и epicId", 400);
+            return;
+        }
+        sendJson(exchange, taskManager.findTasks(query), 200);
+    }
+
+    // ?limit=50&cursor=120&fields=id,name,status - страница в порядке идентификаторов, только указанные поля
+    protected boolean isPageRequest(HttpExchange exchange) {
+        Map<String, String> params = getQueryParams(exchange);
+        return params.containsKey("limit") || params.containsKey("cursor") || params.containsKey("fields");
+    }
+
+    protected void sendTaskPage(HttpExchange exchange, Class<?> type) throws IOException {
+        Map<String, String> params = getQueryParams(exchange);
+        int limit;
+        Integer cursor;
+        Set<String> fields;
+        try {
+            limit = params.containsKey("limit") ? Integer.parseInt(params.get("limit")) : Integer.MAX_VALUE;
+            cursor = params.containsKey("cursor") ? Integer.valueOf(params.get("cursor")) : null;
+            fields = params.containsKey("fields") ? Set.of(params.get("fields").split(",")) : null;
+        } catch (IllegalArgumentException e) {
+            sendText(exchange, "Не удается обработать запрос. Проверьте параметры limit, cursor и fields", 400);
+            return;
+        }
+        if (limit <= 0 || (fields != null && !PAGE_FIELDS.containsAll(fields))) {
+            sendText(exchange, "Не удается обработать запрос. Проверьте параметры limit, cursor и fields", 400);
+            return;
+        }
+
+        TaskPage page = taskManager.getTasksPage(type, cursor, limit);
+        if (page.nextCursor() != null) {
+            exchange.getResponseHeaders().add("X-Next-Cursor", page.nextCursor().toString());
+        }
+        if (fields == null) {
+            sendJson(exchange, page.tasks(), 200);
+            return;
+        }
+        Gson gson = getGson(exchange);
+        List<JsonObject> projection = new ArrayList<>(page.tasks().size());
+        for (Task task : page.tasks()) {
+            JsonObject full = gson.toJsonTree(task).getAsJsonObject();
+            JsonObject projected = new JsonObject();
+            full.entrySet().stream()
+                    .filter(field -> fields.contains(field.getKey()))
+                    .forEach(field -> projected.add(field.getKey(), field.getValue()));
+            projection.add(projected);
+        }
+        sendJson(exchange, projection, 200);
+    }
+
+    // тело - JSON-массив задач типа type (задачи с id обновляются); пакет применяется целиком одной операцией
+    // менеджера, в ответе идентификаторы задач в порядке пакета или список ошибок
+    protected void handlePostBatch(HttpExchange exchange, Class<? extends Task> type) throws IOException {
+        List<Task> tasks = new ArrayList<>();
+        try {
+            JsonArray items = readJsonArray(exchange);
+            for (JsonElement item : items) {
+                if (!item.isJsonObject()) {
+                    throw new JsonParseException("Элемент пакета не является объектом");
+                }
+                tasks.add(gson.fromJson(item, type));
+            }
+        } catch (JsonParseException | IllegalStateException e) {
+            sendText(exchange, "Не удается обработать запрос. Тело должно быть массивом задач", 400);
+            return;
+        }
+        sendBatchResult(exchange, taskManager.addTasks(tasks), 201);
+    }
+
+    // тело - JSON-массив идентификаторов; удаляется все или ничего
+    protected void handleDeleteBatch(HttpExchange exchange) throws IOException {
+        List<Integer> ids = new ArrayList<>();
+        try {
+            for (JsonElement item : readJsonArray(exchange)) {
+                if (!item.isJsonPrimitive() || !item.getAsJsonPrimitive().isNumber()) {
+                    throw new JsonParseException("Элемент пакета не является идентификатором");
+                }
+                ids.add(item.getAsInt());
+            }
+        } catch (JsonParseException | IllegalStateException | NumberFormatException e) {
+            sendText(exchange, "Не удается обработать запрос. Тело должно быть массивом идентификаторов", 400);
+            return;
+        }
+        sendBatchResult(exchange, taskManager.deleteTasks(ids), 200);
+    }
+
+    private JsonArray readJsonArray(HttpExchange exchange) throws IOException {
+        String body = new String(exchange.getRequestBody().readAllBytes(), StandardCharsets.UTF_8);
+        return JsonParser.parseString(body).getAsJsonArray();
+    }
+
+    private void sendBatchResult(HttpExchange exchange, BatchResult result, int successStatus) throws IOException {
+        int status = switch (result.status()) {
+            case APPLIED -> successStatus;
+            case NOT_FOUND -> 404;
+            case CONFLICT -> 406;
+            case INVALID -> 400;
+        };
+        sendJson(exchange, result.isApplied() ? result.ids() : result.errors(), status);
+    }
+
     protected void sendNotFound(HttpExchange exchange) throws IOException {
         // TODO указать неизвестный идентификатор
         byte[] resp = "Объект не найден".getBytes(StandardCharsets.UTF_8);
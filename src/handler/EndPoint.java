@@ -5,6 +5,8 @@ public enum EndPoint {
     GET_TASKS_BY_ID,
     POST_TASKS,
     DELETE_TASKS_BY_ID,
+    POST_TASKS_BATCH,
+    DELETE_TASKS_BATCH,
 
     GET_EPICS,
     GET_EPICS_BY_ID,
@@ -16,9 +18,12 @@ public enum EndPoint {
     GET_SUBTASKS_BY_ID,
     POST_SUBTASKS,
     DELETE_SUBTASKS_BY_ID,
+    POST_SUBTASKS_BATCH,
+    DELETE_SUBTASKS_BATCH,
 
     GET_HISTORY,
     GET_PRIORITIZED,
+    GET_EVENTS,
 
     UNKNOWN
 }
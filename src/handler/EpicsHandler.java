@@ -5,6 +5,7 @@ import com.google.gson.JsonParser;
 import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import exception.NotFoundException;
+import manager.ResourceVersion;
 import manager.TaskManager;
 import task.Epic;
 import java.io.IOException;
@@ -18,8 +19,7 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        EndPoint endPoint = getEndPoint(exchange.getRequestURI().getPath(),
-                HttpMethod.valueOf(exchange.getRequestMethod()));
+        EndPoint endPoint = getEndPoint(exchange);
 
         try {
             switch (endPoint) {
@@ -38,20 +38,36 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleGetEpics(HttpExchange exchange) throws IOException {
-        sendText(exchange, gson.toJson(taskManager.getTasksByType(Epic.class)), 200);
+        if (sendNotModified(exchange, taskManager.getCollectionVersion(Epic.class))) {
+            return;
+        }
+        if (isQueryRequest(exchange)) {
+            sendQueryResult(exchange, Epic.class);
+            return;
+        }
+        if (isPageRequest(exchange)) {
+            sendTaskPage(exchange, Epic.class);
+            return;
+        }
+        sendJson(exchange, taskManager.getTasksByType(Epic.class), 200);
     }
 
     private void handleGetEpicsById(HttpExchange exchange, int id) throws IOException {
-        if (taskManager.getTaskById(id) != null && taskManager.getTaskById(id).getClass() == Epic.class) {
-            sendText(exchange, gson.toJson(taskManager.getTaskById(id)), 200);
-        } else {
-            sendNotFound(exchange);
-        }
+        sendTaskById(exchange, id, Epic.class);
     }
 
+    // как и для задачи, 304 отправляется до поиска эпика и не отмечает его просмотренным
     private void handleGetEpicSubtasksById(HttpExchange exchange, int id) throws IOException {
-        if (taskManager.getTaskById(id) != null && taskManager.getTaskById(id).getClass() == Epic.class) {
-            sendText(exchange, gson.toJson(taskManager.getSubtasks(id)), 200);
+        ResourceVersion version = taskManager.getSubtasksVersion(id);
+        if (version == null) {
+            sendNotFound(exchange);
+            return;
+        }
+        if (sendNotModified(exchange, version)) {
+            return;
+        }
+        if (taskManager.lookupTask(id, Epic.class, true).isFound()) {
+            sendJson(exchange, taskManager.getSubtasks(id), 200);
         } else {
             sendNotFound(exchange);
         }
@@ -86,47 +102,11 @@ public class EpicsHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleDeleteEpicsById(HttpExchange exchange, int id) throws IOException {
-        if (taskManager.getTaskById(id) != null) {
+        if (taskManager.lookupTask(id, null, false).isFound()) {
             taskManager.deleteTaskById(id);
             sendText(exchange, String.format("Эпик id:%d был удален", id), 200);
         } else {
             sendNotFound(exchange);
         }
     }
-
-
-    @Override
-    protected EndPoint getEndPoint(String requestPath, HttpMethod method) {
-        String[] pathParts = requestPath.split("/");
-
-        if (pathParts.length > 3) {
-            try {
-                Integer.parseInt(pathParts[2]);
-            } catch (NumberFormatException e) {
-                return EndPoint.UNKNOWN;
-            }
-        }
-
-        if (pathParts[1].equals("epics")) {
-            if (pathParts.length == 2) {
-                if (HttpMethod.GET.equals(method)) {
-                    return EndPoint.GET_EPICS;
-                } else if (HttpMethod.POST.equals(method)) {
-                    return EndPoint.POST_EPICS;
-                }
-            } else if (pathParts.length == 3) {
-                if (HttpMethod.GET.equals(method)) {
-                    return EndPoint.GET_EPICS_BY_ID;
-                }
-                if (HttpMethod.DELETE.equals(method)) {
-                    return EndPoint.DELETE_EPICS_BY_ID;
-                }
-            } else if (pathParts.length == 4) {
-                if (pathParts[3].equals("subtasks") && HttpMethod.GET.equals(method)) {
-                    return EndPoint.GET_EPICS_SUBTASKS_BY_ID;
-                }
-            }
-        }
-        return EndPoint.UNKNOWN;
-    }
 }
@@ -0,0 +1,125 @@
+package handler;
+
+import manager.TaskEvent;
+import manager.TaskListener;
+import manager.TaskManager;
+import task.Epic;
+import task.Subtask;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// раздача событий менеджера подписчикам /events. У каждого подписчика свой ограниченный кольцевой буфер:
+// менеджер только кладет в него событие и не ждет записи в сеть. Подписчик, чей буфер переполнен,
+// отключается - иначе он пропустил бы события или задерживал изменения задач.
+// На менеджер broadcaster подписывается, только пока есть хотя бы один подписчик
+class EventBroadcaster implements TaskListener {
+    // событие в формате text/event-stream кодируется один раз на всех подписчиков
+    static final class Frame {
+        private final TaskEvent event;
+        private byte[] bytes;
+
+        private Frame(TaskEvent event) {
+            this.event = event;
+        }
+
+        synchronized byte[] getBytes() {
+            if (bytes == null) {
+                String kind = event.task().getClass() == Epic.class ? "epic"
+                        : event.task().getClass() == Subtask.class ? "subtask" : "task";
+                bytes = ("id: " + event.version() + "\n"
+                        + "event: " + kind + "." + event.type().name().toLowerCase() + "\n"
+                        + "data: " + BaseHttpHandler.compactGson.toJson(event.task()) + "\n\n")
+                        .getBytes(StandardCharsets.UTF_8);
+            }
+            return bytes;
+        }
+    }
+
+    // последний элемент очереди отключенного подписчика
+    static final Frame CLOSED = new Frame(null);
+
+    private final TaskManager taskManager;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final int bufferSize;
+    private final AtomicLong droppedCount = new AtomicLong();
+
+    EventBroadcaster(TaskManager taskManager, int bufferSize) {
+        this.taskManager = taskManager;
+        this.bufferSize = bufferSize;
+    }
+
+    // null - подписчиков уже maxSubscribers
+    synchronized Subscriber subscribe(int maxSubscribers) {
+        if (subscribers.size() >= maxSubscribers) {
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(bufferSize);
+        if (subscribers.isEmpty()) {
+            taskManager.addTaskListener(this);
+        }
+        subscribers.add(subscriber);
+        return subscriber;
+    }
+
+    synchronized void unsubscribe(Subscriber subscriber) {
+        if (subscribers.remove(subscriber) && subscribers.isEmpty()) {
+            taskManager.removeTaskListener(this);
+        }
+    }
+
+    synchronized void close() {
+        subscribers.forEach(Subscriber::close);
+        subscribers.clear();
+        taskManager.removeTaskListener(this);
+    }
+
+    int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    long getDroppedCount() {
+        return droppedCount.get();
+    }
+
+    @Override
+    public void onTaskEvent(TaskEvent event) {
+        Frame frame = new Frame(event);
+        for (Subscriber subscriber : subscribers) {
+            if (!subscriber.offer(frame)) {
+                System.out.println("WARN: Подписчик на события не успевает их читать и отключен");
+                unsubscribe(subscriber);
+                subscriber.close();
+                droppedCount.incrementAndGet();
+            }
+        }
+    }
+
+    static final class Subscriber {
+        private final BlockingQueue<Frame> buffer;
+
+        private Subscriber(int bufferSize) {
+            buffer = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private boolean offer(Frame frame) {
+            return buffer.offer(frame);
+        }
+
+        // недоставленные события больше не нужны; место под CLOSED освобождается, даже если
+        // параллельное изменение успело снова заполнить буфер
+        private void close() {
+            do {
+                buffer.clear();
+            } while (!buffer.offer(CLOSED));
+        }
+
+        Frame poll(long timeoutMillis) throws InterruptedException {
+            return buffer.poll(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import manager.TaskManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+// GET /events - поток изменений задач в формате Server-Sent Events: событие task|epic|subtask.created|updated|
+// deleted, в data - задача после изменения. Поток занимает поток обработки на все время подписки
+public class EventsHandler extends BaseHttpHandler implements HttpHandler {
+    private static final byte[] HEARTBEAT = ":\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final EventBroadcaster broadcaster;
+    // 0 - подписка недоступна (запросы обрабатывает один поток-диспетчер)
+    private int maxSubscribers = 16;
+    private long heartbeatMillis = 15_000;
+
+    public EventsHandler(TaskManager taskManager) {
+        this(taskManager, 256);
+    }
+
+    // bufferSize - сколько событий может ждать отправки одному подписчику, прежде чем он будет отключен
+    public EventsHandler(TaskManager taskManager, int bufferSize) {
+        super(taskManager);
+        broadcaster = new EventBroadcaster(taskManager, bufferSize);
+    }
+
+    public void setMaxSubscribers(int maxSubscribers) {
+        this.maxSubscribers = maxSubscribers;
+    }
+
+    // комментарий-пинг в тишине не дает прокси закрыть соединение и обнаруживает отключившихся клиентов
+    public void setHeartbeatMillis(long heartbeatMillis) {
+        this.heartbeatMillis = heartbeatMillis;
+    }
+
+    public int getSubscriberCount() {
+        return broadcaster.getSubscriberCount();
+    }
+
+    public long getDroppedSubscriberCount() {
+        return broadcaster.getDroppedCount();
+    }
+
+    // завершает все открытые потоки
+    public void close() {
+        broadcaster.close();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        EndPoint endPoint = getEndPoint(exchange);
+
+        try {
+            if (endPoint == EndPoint.GET_EVENTS) {
+                handleGetEvents(exchange);
+            } else {
+                handleIncorrectRequest(exchange);
+            }
+        } catch (IOException e) {
+            // клиент отключился - поток просто завершается
+            exchange.close();
+        }
+    }
+
+    private void handleGetEvents(HttpExchange exchange) throws IOException {
+        EventBroadcaster.Subscriber subscriber = broadcaster.subscribe(maxSubscribers);
+        if (subscriber == null) {
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            sendText(exchange, maxSubscribers == 0
+                    ? "Поток событий недоступен в однопоточном режиме сервера"
+                    : "Превышено число подписчиков на события", 503);
+            return;
+        }
+        try {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream;charset=utf-8");
+            exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+            exchange.sendResponseHeaders(200, 0);
+            OutputStream body = exchange.getResponseBody();
+            body.write(HEARTBEAT);
+            body.flush();
+            while (true) {
+                EventBroadcaster.Frame frame = subscriber.poll(heartbeatMillis);
+                if (frame == EventBroadcaster.CLOSED) {
+                    break;
+                }
+                body.write(frame != null ? frame.getBytes() : HEARTBEAT);
+                body.flush();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            broadcaster.unsubscribe(subscriber);
+            exchange.close();
+        }
+    }
+}
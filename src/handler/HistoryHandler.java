@@ -14,8 +14,7 @@ public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        EndPoint endPoint = getEndPoint(exchange.getRequestURI().getPath(),
-                HttpMethod.valueOf(exchange.getRequestMethod()));
+        EndPoint endPoint = getEndPoint(exchange);
 
         try {
             if (Objects.requireNonNull(endPoint) == EndPoint.GET_HISTORY) {
@@ -29,18 +28,6 @@ public class HistoryHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleGetHistory(HttpExchange exchange) throws IOException {
-        sendText(exchange, gson.toJson(taskManager.getHistory()), 200);
-    }
-
-    @Override
-    protected EndPoint getEndPoint(String requestPath, HttpMethod method) {
-        String[] pathParts = requestPath.split("/");
-
-        if (pathParts.length == 2 && pathParts[1].equals("history")) {
-            if (HttpMethod.GET.equals(method)) {
-                return EndPoint.GET_HISTORY;
-            }
-        }
-        return EndPoint.UNKNOWN;
+        sendJson(exchange, taskManager.getHistory(), 200);
     }
 }
@@ -8,5 +8,20 @@ public enum HttpMethod {
     PATCH,
     POST,
     PUT,
-    TRACE
+    TRACE;
+
+    // в отличие от valueOf, для неизвестного метода возвращает null, а не бросает исключение
+    public static HttpMethod of(String name) {
+        return switch (name) {
+            case "DELETE" -> DELETE;
+            case "GET" -> GET;
+            case "HEAD" -> HEAD;
+            case "OPTIONS" -> OPTIONS;
+            case "PATCH" -> PATCH;
+            case "POST" -> POST;
+            case "PUT" -> PUT;
+            case "TRACE" -> TRACE;
+            default -> null;
+        };
+    }
 }
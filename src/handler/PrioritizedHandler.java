@@ -4,6 +4,10 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import manager.TaskManager;
 import java.io.IOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
 import java.util.Objects;
 
 public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
@@ -14,8 +18,7 @@ public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        EndPoint endPoint = getEndPoint(exchange.getRequestURI().getPath(),
-                HttpMethod.valueOf(exchange.getRequestMethod()));
+        EndPoint endPoint = getEndPoint(exchange);
 
         try {
             if (Objects.requireNonNull(endPoint) == EndPoint.GET_PRIORITIZED) {
@@ -29,18 +32,29 @@ public class PrioritizedHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleGetPrioritized(HttpExchange exchange) throws IOException {
-        sendText(exchange, gson.toJson(taskManager.getPrioritizedTasks()), 200);
-    }
-
-    @Override
-    protected EndPoint getEndPoint(String requestPath, HttpMethod method) {
-        String[] pathParts = requestPath.split("/");
+        if (sendNotModified(exchange, taskManager.getPrioritizedVersion())) {
+            return;
+        }
+        Map<String, String> params = getQueryParams(exchange);
+        if (!params.containsKey("from") && !params.containsKey("to")) {
+            sendJson(exchange, taskManager.getPrioritizedTasks(), 200);
+            return;
+        }
 
-        if (pathParts.length == 2 && pathParts[1].equals("prioritized")) {
-            if (HttpMethod.GET.equals(method)) {
-                return EndPoint.GET_PRIORITIZED;
-            }
+        // например, /prioritized?from=2025-04-01T09:00&to=2025-04-01T12:00
+        LocalDateTime from;
+        LocalDateTime to;
+        try {
+            from = params.containsKey("from")
+                    ? LocalDateTime.parse(params.get("from"), DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                    : LocalDateTime.MIN;
+            to = params.containsKey("to")
+                    ? LocalDateTime.parse(params.get("to"), DateTimeFormatter.ISO_LOCAL_DATE_TIME)
+                    : LocalDateTime.MAX;
+        } catch (DateTimeParseException e) {
+            sendText(exchange, "Не удается обработать запрос. Проверьте параметры from и to", 400);
+            return;
         }
-        return EndPoint.UNKNOWN;
+        sendJson(exchange, taskManager.getPrioritizedTasks(from, to), 200);
     }
 }
@@ -0,0 +1,92 @@
+package handler;
+
+import com.sun.net.httpserver.HttpExchange;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+// тело ответа: первые bufferLimit байт копятся в буфере. Если ответ в него поместился, он уходит как есть
+// с Content-Length; иначе заголовки отправляются с chunked-кодированием, и дальше тело пишется потоком -
+// через gzip/deflate, если клиент поддерживает сжатие
+class ResponseBodyStream extends OutputStream {
+    private static final int COMPRESSION_BUFFER_SIZE = 8192;
+    // большинство ответов короткие: буфер растет до bufferLimit, только если тело того требует
+    private static final int INITIAL_BUFFER_SIZE = 8192;
+
+    private final HttpExchange exchange;
+    private final int status;
+    private final String encoding;
+    private final int bufferLimit;
+    private byte[] buffer;
+    private int size;
+    private OutputStream out;
+
+    // encoding - "gzip", "deflate" или null
+    ResponseBodyStream(HttpExchange exchange, int status, String encoding, int bufferLimit) {
+        this.exchange = exchange;
+        this.status = status;
+        this.encoding = encoding;
+        this.bufferLimit = bufferLimit;
+        this.buffer = new byte[Math.min(bufferLimit, INITIAL_BUFFER_SIZE)];
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[]{(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) throws IOException {
+        if (out == null && size + length <= bufferLimit) {
+            if (size + length > buffer.length) {
+                buffer = Arrays.copyOf(buffer, (int) Math.min(bufferLimit,
+                        Math.max((long) buffer.length * 2, size + length)));
+            }
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+            return;
+        }
+        if (out == null) {
+            startStreaming();
+        }
+        out.write(bytes, offset, length);
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (out != null) {
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            return;
+        }
+        exchange.sendResponseHeaders(status, size == 0 ? -1 : size);
+        try (OutputStream body = exchange.getResponseBody()) {
+            body.write(buffer, 0, size);
+        }
+    }
+
+    private void startStreaming() throws IOException {
+        if (encoding != null) {
+            exchange.getResponseHeaders().set("Content-Encoding", encoding);
+        }
+        exchange.sendResponseHeaders(status, 0);
+        OutputStream body = exchange.getResponseBody();
+        if ("gzip".equals(encoding)) {
+            out = new GZIPOutputStream(body, COMPRESSION_BUFFER_SIZE);
+        } else if ("deflate".equals(encoding)) {
+            out = new BufferedOutputStream(new DeflaterOutputStream(body), COMPRESSION_BUFFER_SIZE);
+        } else {
+            out = body;
+        }
+        out.write(buffer, 0, size);
+    }
+}
@@ -0,0 +1,162 @@
+package handler;
+
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+// таблица маршрутов: дерево по сегментам пути, в узле - конечные точки по HTTP-методу.
+// Шаблон сегмента {id} совпадает с неотрицательным числом, помещающимся в int.
+// Разбор пути идет по индексам исходной строки, поэтому сопоставление запроса ничего не выделяет
+public class Router {
+    private static final String ID = "{id}";
+
+    // маршруты всех обработчиков сервера
+    public static final Router DEFAULT = new Router()
+            .route(HttpMethod.GET, "/tasks", EndPoint.GET_TASKS)
+            .route(HttpMethod.POST, "/tasks", EndPoint.POST_TASKS)
+            .route(HttpMethod.GET, "/tasks/{id}", EndPoint.GET_TASKS_BY_ID)
+            .route(HttpMethod.DELETE, "/tasks/{id}", EndPoint.DELETE_TASKS_BY_ID)
+            .route(HttpMethod.POST, "/tasks/batch", EndPoint.POST_TASKS_BATCH)
+            .route(HttpMethod.DELETE, "/tasks/batch", EndPoint.DELETE_TASKS_BATCH)
+            .route(HttpMethod.GET, "/epics", EndPoint.GET_EPICS)
+            .route(HttpMethod.POST, "/epics", EndPoint.POST_EPICS)
+            .route(HttpMethod.GET, "/epics/{id}", EndPoint.GET_EPICS_BY_ID)
+            .route(HttpMethod.DELETE, "/epics/{id}", EndPoint.DELETE_EPICS_BY_ID)
+            .route(HttpMethod.GET, "/epics/{id}/subtasks", EndPoint.GET_EPICS_SUBTASKS_BY_ID)
+            .route(HttpMethod.GET, "/subtasks", EndPoint.GET_SUBTASKS)
+            .route(HttpMethod.POST, "/subtasks", EndPoint.POST_SUBTASKS)
+            .route(HttpMethod.GET, "/subtasks/{id}", EndPoint.GET_SUBTASKS_BY_ID)
+            .route(HttpMethod.DELETE, "/subtasks/{id}", EndPoint.DELETE_SUBTASKS_BY_ID)
+            .route(HttpMethod.POST, "/subtasks/batch", EndPoint.POST_SUBTASKS_BATCH)
+            .route(HttpMethod.DELETE, "/subtasks/batch", EndPoint.DELETE_SUBTASKS_BATCH)
+            .route(HttpMethod.GET, "/history", EndPoint.GET_HISTORY)
+            .route(HttpMethod.GET, "/prioritized", EndPoint.GET_PRIORITIZED)
+            .route(HttpMethod.GET, "/events", EndPoint.GET_EVENTS);
+
+    private final Node root = new Node();
+
+    public Router route(HttpMethod method, String pattern, EndPoint endPoint) {
+        Node node = root;
+        for (String segment : pattern.substring(1).split("/")) {
+            node = node.getOrCreateChild(segment);
+        }
+        node.endPoints[method.ordinal()] = endPoint;
+        return this;
+    }
+
+    // UNKNOWN - путь не найден или не поддерживает метод; различить их можно через getAllowedMethods
+    public EndPoint match(String method, String path) {
+        Node node = find(path);
+        HttpMethod httpMethod = HttpMethod.of(method);
+        if (node == null || httpMethod == null) {
+            return EndPoint.UNKNOWN;
+        }
+        EndPoint endPoint = node.endPoints[httpMethod.ordinal()];
+        return endPoint != null ? endPoint : EndPoint.UNKNOWN;
+    }
+
+    // методы, зарегистрированные для пути; пустое множество - пути нет
+    public Set<HttpMethod> getAllowedMethods(String path) {
+        Set<HttpMethod> methods = EnumSet.noneOf(HttpMethod.class);
+        Node node = find(path);
+        if (node != null) {
+            for (HttpMethod method : HttpMethod.values()) {
+                if (node.endPoints[method.ordinal()] != null) {
+                    methods.add(method);
+                }
+            }
+        }
+        return methods;
+    }
+
+    // числовой сегмент пути с номером index (с нуля, /tasks/15 -> 1), -1 - сегмента нет или это не число
+    public static int parseIntSegment(String path, int index) {
+        int start = 1;
+        for (int i = 0; i < index; i++) {
+            start = path.indexOf('/', start) + 1;
+            if (start == 0) {
+                return -1;
+            }
+        }
+        int end = path.indexOf('/', start);
+        return parseInt(path, start, end < 0 ? path.length() : end);
+    }
+
+    private Node find(String path) {
+        int length = path.length();
+        if (length == 0 || path.charAt(0) != '/') {
+            return null;
+        }
+        // завершающий слэш не меняет маршрут: /tasks/ - то же, что /tasks
+        if (length > 1 && path.charAt(length - 1) == '/') {
+            length--;
+        }
+        Node node = root;
+        int start = 1;
+        while (start < length) {
+            int end = path.indexOf('/', start);
+            if (end < 0 || end > length) {
+                end = length;
+            }
+            node = node.findChild(path, start, end);
+            if (node == null) {
+                return null;
+            }
+            start = end + 1;
+        }
+        return node;
+    }
+
+    private static int parseInt(String path, int start, int end) {
+        if (start >= end || end - start > 10) {
+            return -1;
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = path.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value <= Integer.MAX_VALUE ? (int) value : -1;
+    }
+
+    private static class Node {
+        private final EndPoint[] endPoints = new EndPoint[HttpMethod.values().length];
+        private String[] literals = new String[0];
+        private Node[] literalChildren = new Node[0];
+        private Node idChild;
+
+        private Node getOrCreateChild(String segment) {
+            if (segment.equals(ID)) {
+                if (idChild == null) {
+                    idChild = new Node();
+                }
+                return idChild;
+            }
+            for (int i = 0; i < literals.length; i++) {
+                if (literals[i].equals(segment)) {
+                    return literalChildren[i];
+                }
+            }
+            Node child = new Node();
+            literals = Arrays.copyOf(literals, literals.length + 1);
+            literalChildren = Arrays.copyOf(literalChildren, literalChildren.length + 1);
+            literals[literals.length - 1] = segment;
+            literalChildren[literalChildren.length - 1] = child;
+            return child;
+        }
+
+        // у узла единицы дочерних сегментов, поэтому линейный просмотр без хеширования подстроки
+        private Node findChild(String path, int start, int end) {
+            int length = end - start;
+            for (int i = 0; i < literals.length; i++) {
+                if (literals[i].length() == length && path.regionMatches(start, literals[i], 0, length)) {
+                    return literalChildren[i];
+                }
+            }
+            return idChild != null && parseInt(path, start, end) >= 0 ? idChild : null;
+        }
+    }
+}
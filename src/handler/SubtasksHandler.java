@@ -18,8 +18,7 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        EndPoint endPoint = getEndPoint(exchange.getRequestURI().getPath(),
-                HttpMethod.valueOf(exchange.getRequestMethod()));
+        EndPoint endPoint = getEndPoint(exchange);
 
         try {
             switch (endPoint) {
@@ -39,6 +38,14 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
                     handleDeleteSubtasksById(exchange, getIdFromPath(exchange));
                     break;
                 }
+                case POST_SUBTASKS_BATCH: {
+                    handlePostBatch(exchange, Subtask.class);
+                    break;
+                }
+                case DELETE_SUBTASKS_BATCH: {
+                    handleDeleteBatch(exchange);
+                    break;
+                }
                 default:
                     handleIncorrectRequest(exchange);
             }
@@ -50,15 +57,22 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleGetSubtasks(HttpExchange exchange) throws IOException {
-        sendText(exchange, gson.toJson(taskManager.getTasksByType(Subtask.class)), 200);
+        if (sendNotModified(exchange, taskManager.getCollectionVersion(Subtask.class))) {
+            return;
+        }
+        if (isQueryRequest(exchange)) {
+            sendQueryResult(exchange, Subtask.class);
+            return;
+        }
+        if (isPageRequest(exchange)) {
+            sendTaskPage(exchange, Subtask.class);
+            return;
+        }
+        sendJson(exchange, taskManager.getTasksByType(Subtask.class), 200);
     }
 
     private void handleGetSubtasksById(HttpExchange exchange, int id) throws IOException {
-        if (taskManager.getTaskById(id) != null && taskManager.getTaskById(id).getClass() == Subtask.class) {
-            sendText(exchange, gson.toJson(taskManager.getTaskById(id)), 200);
-        } else {
-            sendNotFound(exchange);
-        }
+        sendTaskById(exchange, id, Subtask.class);
     }
 
     private void handlePostSubtasks(HttpExchange exchange) throws IOException {
@@ -89,42 +103,11 @@ public class SubtasksHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleDeleteSubtasksById(HttpExchange exchange, int id) throws IOException {
-        if (taskManager.getTaskById(id) != null) {
+        if (taskManager.lookupTask(id, null, false).isFound()) {
             taskManager.deleteTaskById(id);
             sendText(exchange, String.format("Подзадача id:%d была удалена", id), 200);
         } else {
             sendNotFound(exchange);
         }
     }
-
-
-
-    @Override
-    protected EndPoint getEndPoint(String requestPath, HttpMethod method) {
-        String[] pathParts = requestPath.split("/");
-
-        if (pathParts[1].equals("subtasks")) {
-            if (pathParts.length == 2) {
-                if (HttpMethod.GET.equals(method)) {
-                    return EndPoint.GET_SUBTASKS;
-                } else if (HttpMethod.POST.equals(method)) {
-                    return EndPoint.POST_SUBTASKS;
-                }
-            } else if (pathParts.length == 3) {
-                try {
-                    Integer.parseInt(pathParts[2]);
-                } catch (NumberFormatException e) {
-                    return EndPoint.UNKNOWN;
-                }
-
-                if (HttpMethod.GET.equals(method)) {
-                    return EndPoint.GET_SUBTASKS_BY_ID;
-                }
-                if (HttpMethod.DELETE.equals(method)) {
-                    return EndPoint.DELETE_SUBTASKS_BY_ID;
-                }
-            }
-        }
-        return EndPoint.UNKNOWN;
-    }
 }
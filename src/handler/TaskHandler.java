@@ -18,8 +18,7 @@ public class TaskHandler extends BaseHttpHandler implements HttpHandler {
 
     @Override
     public void handle(HttpExchange exchange) throws IOException {
-        EndPoint endPoint = getEndPoint(exchange.getRequestURI().getPath(),
-                HttpMethod.valueOf(exchange.getRequestMethod()));
+        EndPoint endPoint = getEndPoint(exchange);
 
         try {
             switch (endPoint) {
@@ -39,6 +38,14 @@ public class TaskHandler extends BaseHttpHandler implements HttpHandler {
                     handleDeleteTasksById(exchange, getIdFromPath(exchange));
                     break;
                 }
+                case POST_TASKS_BATCH: {
+                    handlePostBatch(exchange, Task.class);
+                    break;
+                }
+                case DELETE_TASKS_BATCH: {
+                    handleDeleteBatch(exchange);
+                    break;
+                }
                 default:
                     handleIncorrectRequest(exchange);
             }
@@ -50,15 +57,22 @@ public class TaskHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleGetTasks(HttpExchange exchange) throws IOException {
-        sendText(exchange, gson.toJson(taskManager.getTasksByType(Task.class)), 200);
+        if (sendNotModified(exchange, taskManager.getCollectionVersion(Task.class))) {
+            return;
+        }
+        if (isQueryRequest(exchange)) {
+            sendQueryResult(exchange, Task.class);
+            return;
+        }
+        if (isPageRequest(exchange)) {
+            sendTaskPage(exchange, Task.class);
+            return;
+        }
+        sendJson(exchange, taskManager.getTasksByType(Task.class), 200);
     }
 
     private void handleGetTasksById(HttpExchange exchange, int id) throws IOException  {
-        if (taskManager.getTaskById(id) != null && taskManager.getTaskById(id).getClass() == Task.class) {
-            sendText(exchange, gson.toJson(taskManager.getTaskById(id)), 200);
-        } else {
-            sendNotFound(exchange);
-        }
+        sendTaskById(exchange, id, Task.class);
     }
 
     private void handlePostTasks(HttpExchange exchange) throws IOException {
@@ -89,41 +103,11 @@ public class TaskHandler extends BaseHttpHandler implements HttpHandler {
     }
 
     private void handleDeleteTasksById(HttpExchange exchange, int id) throws IOException {
-        if (taskManager.getTaskById(id) != null) {
+        if (taskManager.lookupTask(id, null, false).isFound()) {
             taskManager.deleteTaskById(id);
             sendText(exchange, String.format("Задача id:%d была удалена", id), 200);
         } else {
             sendNotFound(exchange);
         }
     }
-
-    @Override
-    protected EndPoint getEndPoint(String requestPath, HttpMethod method) {
-        String[] pathParts = requestPath.split("/");
-
-        if (pathParts[1].equals("tasks")) {
-            if (pathParts.length == 2) {
-                if (HttpMethod.GET.equals(method)) {
-                    return EndPoint.GET_TASKS;
-                } else if (HttpMethod.POST.equals(method)) {
-                    return EndPoint.POST_TASKS;
-                }
-            } else if (pathParts.length == 3) {
-                try {
-                    Integer.parseInt(pathParts[2]);
-                } catch (NumberFormatException e) {
-                    return EndPoint.UNKNOWN;
-                }
-                if (HttpMethod.GET.equals(method)) {
-                    return EndPoint.GET_TASKS_BY_ID;
-                }
-                if (HttpMethod.DELETE.equals(method)) {
-                    return EndPoint.DELETE_TASKS_BY_ID;
-                }
-            }
-        }
-        return EndPoint.UNKNOWN;
-    }
 }
-
-
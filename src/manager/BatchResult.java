@@ -0,0 +1,27 @@
+package manager;
+
+import java.util.List;
+
+// результат пакетного изменения: пакет применяется целиком (APPLIED, ids - идентификаторы задач пакета
+// в его порядке) или не применяется вовсе, тогда errors описывает все найденные проблемы
+public record BatchResult(Status status, List<Integer> ids, List<String> errors) {
+
+    public enum Status {
+        APPLIED,
+        INVALID,
+        NOT_FOUND,
+        CONFLICT
+    }
+
+    static BatchResult applied(List<Integer> ids) {
+        return new BatchResult(Status.APPLIED, List.copyOf(ids), List.of());
+    }
+
+    static BatchResult rejected(Status status, List<String> errors) {
+        return new BatchResult(status, List.of(), List.copyOf(errors));
+    }
+
+    public boolean isApplied() {
+        return status == Status.APPLIED;
+    }
+}
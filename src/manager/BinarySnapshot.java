@@ -0,0 +1,337 @@
+package manager;
+
+import exception.ManagerSaveException;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+// двоичный снимок задач.
+// Заголовок: "KBTS", версия, словари типов и статусов (имена в порядке кодов).
+// Далее блоки: varint число задач, varint длина данных, данные, CRC32 данных; блок с 0 задач - конец файла.
+// Задача: байт кода (тип, статус, флаги), varint id, [varint epicId], [varint длительность в минутах],
+// [zigzag varint начало в минутах от 1970-01-01T00:00], имя и описание - varint (длина + 1) и UTF-8, 0 - null
+class BinarySnapshot {
+    private static final byte[] MAGIC = {'K', 'B', 'T', 'S'};
+    private static final int VERSION = 1;
+    private static final int TASKS_PER_BLOCK = 4096;
+    private static final int HAS_START = 1 << 4;
+    private static final int HAS_DURATION = 1 << 5;
+
+    private BinarySnapshot() {
+    }
+
+    static boolean isBinary(Path file) throws IOException {
+        if (!Files.exists(file) || Files.size(file) < MAGIC.length) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(MAGIC.length);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                // читаем сигнатуру
+            }
+            return Arrays.equals(magic.array(), MAGIC);
+        }
+    }
+
+    static void write(Collection<Task> tasks, Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            Buffer header = new Buffer();
+            header.writeBytes(MAGIC);
+            header.writeVarLong(VERSION);
+            writeDictionary(header, TaskType.values());
+            writeDictionary(header, TaskStatus.values());
+            header.writeTo(channel);
+
+            Buffer block = new Buffer();
+            Buffer framed = new Buffer();
+            CRC32 crc = new CRC32();
+            int count = 0;
+            for (Task task : tasks) {
+                writeTask(block, task);
+                if (++count == TASKS_PER_BLOCK) {
+                    writeBlock(channel, framed, block, count, crc);
+                    count = 0;
+                }
+            }
+            if (count > 0) {
+                writeBlock(channel, framed, block, count, crc);
+            }
+            writeBlock(channel, framed, block, 0, crc);
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время записи двоичного снимка " + file);
+        }
+    }
+
+    static Map<Integer, Task> read(Path file) throws IOException {
+        long startNanos = System.nanoTime();
+        ByteBuffer data = CsvTaskReader.load(file);
+        byte[] magic = new byte[MAGIC.length];
+        if (data.remaining() >= MAGIC.length) {
+            data.get(magic);
+        }
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IllegalArgumentException("Файл " + file + " не является двоичным снимком");
+        }
+        long version = readVarLong(data);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Неподдерживаемая версия двоичного снимка: " + version);
+        }
+        TaskType[] types = readDictionary(data, TaskType.class);
+        TaskStatus[] statuses = readDictionary(data, TaskStatus.class);
+
+        Map<Integer, Task> tasks = new LinkedHashMap<>();
+        CRC32 crc = new CRC32();
+        while (true) {
+            int blockStart = data.position();
+            long count;
+            long length;
+            try {
+                count = readVarLong(data);
+                length = readVarLong(data);
+            } catch (IllegalArgumentException e) {
+                throw corruptedBlock(blockStart);
+            }
+            int payloadStart = data.position();
+            // длины проверяются до чтения: поврежденный заголовок блока не должен выводить за конец файла
+            if (count < 0 || length < count || length > data.remaining() - Integer.BYTES) {
+                throw corruptedBlock(blockStart);
+            }
+            ByteBuffer payload = data.slice(payloadStart, (int) length);
+            crc.reset();
+            crc.update(payload);
+            data.position(payloadStart + (int) length);
+            if ((int) crc.getValue() != data.getInt()) {
+                throw corruptedBlock(blockStart);
+            }
+            if (count == 0) {
+                break;
+            }
+            payload.rewind();
+            try {
+                for (int i = 0; i < count; i++) {
+                    Task task = readTask(payload, types, statuses);
+                    tasks.put(task.getId(), task);
+                }
+            } catch (IllegalArgumentException e) {
+                throw corruptedBlock(blockStart);
+            }
+            if (payload.hasRemaining()) {
+                throw corruptedBlock(blockStart);
+            }
+        }
+        long millis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        System.out.printf("INFO: Прочитано задач из двоичного снимка: %d за %d мс (%d задач/с)\n", tasks.size(),
+                millis, tasks.size() * 1000L / millis);
+        return tasks;
+    }
+
+    private static IllegalArgumentException corruptedBlock(int offset) {
+        return new IllegalArgumentException("Повреждён блок двоичного снимка со смещением " + offset);
+    }
+
+    private static void writeTask(Buffer block, Task task) {
+        TaskType type = task instanceof Subtask ? TaskType.SUBTASK : task instanceof Epic ? TaskType.EPIC
+                : TaskType.TASK;
+        boolean derived = type == TaskType.EPIC;
+        boolean hasStart = !derived && task.getStartTime().isPresent();
+        boolean hasDuration = !derived && task.getDuration() != null;
+        block.writeByte(type.ordinal() | task.getStatus().ordinal() << 2
+                | (hasStart ? HAS_START : 0) | (hasDuration ? HAS_DURATION : 0));
+        block.writeVarLong(task.getId());
+        if (type == TaskType.SUBTASK) {
+            block.writeVarLong(((Subtask) task).getEpicId());
+        }
+        if (hasDuration) {
+            block.writeVarLong(task.getDuration().toMinutes());
+        }
+        if (hasStart) {
+            long epochMinute = task.getStartTime().get().toEpochSecond(ZoneOffset.UTC) / 60;
+            block.writeVarLong(epochMinute << 1 ^ epochMinute >> 63);
+        }
+        block.writeString(task.getName());
+        block.writeString(task.getDescription());
+    }
+
+    private static Task readTask(ByteBuffer payload, TaskType[] types, TaskStatus[] statuses) {
+        if (!payload.hasRemaining()) {
+            throw new IllegalArgumentException("Блок содержит меньше задач, чем указано в заголовке");
+        }
+        int code = payload.get() & 0xFF;
+        if ((code & 0b11) >= types.length || (code >> 2 & 0b11) >= statuses.length) {
+            throw new IllegalArgumentException("Неизвестный код задачи: " + code);
+        }
+        TaskType type = types[code & 0b11];
+        TaskStatus status = statuses[code >> 2 & 0b11];
+        Task task = switch (type) {
+            case TASK -> new Task();
+            case EPIC -> new Epic();
+            case SUBTASK -> new Subtask();
+        };
+        task.setId((int) readVarLong(payload));
+        if (task instanceof Subtask subtask) {
+            subtask.setEpicId((int) readVarLong(payload));
+        }
+        if ((code & HAS_DURATION) != 0) {
+            task.setDuration(readVarLong(payload));
+        }
+        if ((code & HAS_START) != 0) {
+            long zigzag = readVarLong(payload);
+            long epochMinute = zigzag >>> 1 ^ -(zigzag & 1);
+            task.setStartTime(LocalDateTime.ofEpochSecond(epochMinute * 60, 0, ZoneOffset.UTC));
+        }
+        task.setName(readString(payload));
+        task.setDescription(readString(payload));
+        if (task instanceof Epic epic) {
+            // статус эпика хранится в снимке и восстанавливается как есть
+            epic.setStatusForce(status);
+        } else {
+            task.setStatus(status);
+        }
+        return task;
+    }
+
+    private static void writeBlock(FileChannel channel, Buffer framed, Buffer block, int count, CRC32 crc)
+            throws IOException {
+        crc.reset();
+        crc.update(block.bytes, 0, block.size);
+        framed.size = 0;
+        framed.writeVarLong(count);
+        framed.writeVarLong(block.size);
+        framed.writeBytes(block.bytes, block.size);
+        framed.writeInt((int) crc.getValue());
+        framed.writeTo(channel);
+        block.size = 0;
+    }
+
+    private static void writeDictionary(Buffer header, Enum<?>[] values) {
+        header.writeVarLong(values.length);
+        for (Enum<?> value : values) {
+            header.writeString(value.name());
+        }
+    }
+
+    // коды из файла сопоставляются значениям перечисления по имени, а не по порядку объявления
+    private static <E extends Enum<E>> E[] readDictionary(ByteBuffer data, Class<E> type) {
+        long size = readVarLong(data);
+        if (size < 0 || size > 4) {
+            throw new IllegalArgumentException("Словарь " + type.getSimpleName() + " не помещается в код задачи");
+        }
+        E[] values = Arrays.copyOf(type.getEnumConstants(), (int) size);
+        for (int i = 0; i < size; i++) {
+            values[i] = Enum.valueOf(type, readString(data));
+        }
+        return values;
+    }
+
+    private static long readVarLong(ByteBuffer data) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!data.hasRemaining()) {
+                throw new IllegalArgumentException("Двоичный снимок обрывается на смещении " + data.position());
+            }
+            byte b = data.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Некорректное число в двоичном снимке");
+    }
+
+    private static String readString(ByteBuffer data) {
+        long storedLength = readVarLong(data) - 1;
+        if (storedLength == -1) {
+            return null;
+        }
+        if (storedLength < 0 || storedLength > data.remaining()) {
+            throw new IllegalArgumentException("Строка на смещении " + data.position() + " выходит за пределы данных");
+        }
+        int length = (int) storedLength;
+        String value;
+        if (data.hasArray()) {
+            value = new String(data.array(), data.arrayOffset() + data.position(), length, StandardCharsets.UTF_8);
+        } else {
+            byte[] bytes = new byte[length];
+            data.get(data.position(), bytes);
+            value = new String(bytes, StandardCharsets.UTF_8);
+        }
+        data.position(data.position() + length);
+        return value;
+    }
+
+    // растущий массив байтов для сборки блока перед записью
+    private static class Buffer {
+        private byte[] bytes = new byte[8192];
+        private int size;
+
+        void writeByte(int value) {
+            ensureCapacity(1);
+            bytes[size++] = (byte) value;
+        }
+
+        void writeInt(int value) {
+            ensureCapacity(4);
+            ByteBuffer.wrap(bytes, size, 4).putInt(value);
+            size += 4;
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                bytes[size++] = (byte) (value & 0x7F | 0x80);
+                value >>>= 7;
+            }
+            bytes[size++] = (byte) value;
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(utf8.length + 1L);
+            writeBytes(utf8);
+        }
+
+        void writeBytes(byte[] source) {
+            writeBytes(source, source.length);
+        }
+
+        void writeBytes(byte[] source, int length) {
+            ensureCapacity(length);
+            System.arraycopy(source, 0, bytes, size, length);
+            size += length;
+        }
+
+        void writeTo(FileChannel channel) throws IOException {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, size);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        }
+
+        private void ensureCapacity(int extra) {
+            if (size + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+            }
+        }
+    }
+}
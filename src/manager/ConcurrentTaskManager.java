@@ -0,0 +1,194 @@
+package manager;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// потокобезопасный менеджер для HttpTaskServer с несколькими потоками обработки:
+// хранилища - ConcurrentHashMap и ConcurrentSkipListMap, идентификаторы выдает AtomicInteger,
+// изменения подзадач одного эпика сериализуются блокировкой его полосы (stripe)
+public class ConcurrentTaskManager extends InMemoryTaskManager {
+    private static final int LOCK_STRIPES = 64;
+    private final ReentrantLock[] epicLocks = new ReentrantLock[LOCK_STRIPES];
+    // проверка пересечения и вставка в prioritizedTasks должны выполняться атомарно
+    private final ReentrantLock scheduleLock = new ReentrantLock();
+    // индексы статуса и времени начала общие для задач всех эпиков
+    private final ReentrantLock queryIndexLock = new ReentrantLock();
+
+    public ConcurrentTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    // история просмотров синхронизируется сама, менеджер ее не блокирует
+    public ConcurrentTaskManager(HistoryManager historyManager) {
+        super(historyManager, StorageType.CONCURRENT);
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            epicLocks[i] = new ReentrantLock();
+        }
+    }
+
+    @Override
+    public void addTask(Task task) {
+        withEpicLocks(task, () -> super.addTask(task));
+    }
+
+    @Override
+    public void updateTask(Task task) {
+        withEpicLocks(task, () -> super.updateTask(task));
+    }
+
+    @Override
+    public void deleteTaskById(Integer id) {
+        Task task = taskMap.get(id);
+        if (task == null) {
+            super.deleteTaskById(id);
+            return;
+        }
+        withEpicLocks(task, () -> super.deleteTaskById(id));
+    }
+
+    @Override
+    public void clearTasks() {
+        withAllLocks(() -> {
+            super.clearTasks();
+            return null;
+        });
+    }
+
+    // пакет может затрагивать любые эпики, а проверка пересечений и вставка всех задач должны быть атомарными
+    @Override
+    public BatchResult addTasks(List<? extends Task> tasks) {
+        return withAllLocks(() -> super.addTasks(tasks));
+    }
+
+    @Override
+    public BatchResult deleteTasks(Collection<Integer> ids) {
+        return withAllLocks(() -> super.deleteTasks(ids));
+    }
+
+    @Override
+    public void deleteTasksByType(Class<?> cl) {
+        withAllLocks(() -> {
+            super.deleteTasksByType(cl);
+            return null;
+        });
+    }
+
+    @Override
+    public List<Subtask> getSubtasks(int epicId) {
+        ReentrantLock lock = epicLocks[stripe(epicId)];
+        lock.lock();
+        try {
+            return super.getSubtasks(epicId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    protected void addToPrioritized(Task task) {
+        scheduleLock.lock();
+        try {
+            super.addToPrioritized(task);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    protected LocalDateTime removeFromPrioritized(Integer id) {
+        scheduleLock.lock();
+        try {
+            return super.removeFromPrioritized(id);
+        } finally {
+            scheduleLock.unlock();
+        }
+    }
+
+    @Override
+    protected void indexQuery(Task task) {
+        queryIndexLock.lock();
+        try {
+            super.indexQuery(task);
+        } finally {
+            queryIndexLock.unlock();
+        }
+    }
+
+    @Override
+    protected void unindexQuery(Integer id) {
+        queryIndexLock.lock();
+        try {
+            super.unindexQuery(id);
+        } finally {
+            queryIndexLock.unlock();
+        }
+    }
+
+    private <T> T withAllLocks(Supplier<T> action) {
+        for (ReentrantLock lock : epicLocks) {
+            lock.lock();
+        }
+        scheduleLock.lock();
+        queryIndexLock.lock();
+        try {
+            return action.get();
+        } finally {
+            queryIndexLock.unlock();
+            scheduleLock.unlock();
+            for (int i = LOCK_STRIPES - 1; i >= 0; i--) {
+                epicLocks[i].unlock();
+            }
+        }
+    }
+
+    // блокирует полосы всех эпиков, которые затрагивает изменение задачи: эпик подзадачи,
+    // эпик, к которому она была привязана раньше, или сам изменяемый эпик
+    private void withEpicLocks(Task task, Runnable action) {
+        while (true) {
+            Integer indexedEpicId = task.getId() != null ? subtaskEpics.get(task.getId()) : null;
+            int[] stripes = getStripes(task, indexedEpicId);
+            for (int stripe : stripes) {
+                epicLocks[stripe].lock();
+            }
+            try {
+                // пока ждали блокировку, подзадачу могли перенести в другой эпик
+                Integer actualEpicId = task.getId() != null ? subtaskEpics.get(task.getId()) : null;
+                if (Objects.equals(indexedEpicId, actualEpicId)) {
+                    action.run();
+                    return;
+                }
+            } finally {
+                for (int i = stripes.length - 1; i >= 0; i--) {
+                    epicLocks[stripes[i]].unlock();
+                }
+            }
+        }
+    }
+
+    private int[] getStripes(Task task, Integer indexedEpicId) {
+        int[] stripes = new int[2];
+        int count = 0;
+        if (task.getClass() == Subtask.class && ((Subtask) task).getEpicId() != null) {
+            stripes[count++] = stripe(((Subtask) task).getEpicId());
+        } else if (task.getClass() == Epic.class && task.getId() != null) {
+            stripes[count++] = stripe(task.getId());
+        }
+        if (indexedEpicId != null) {
+            stripes[count++] = stripe(indexedEpicId);
+        }
+        // единый порядок захвата исключает взаимную блокировку при переносе подзадач
+        return Arrays.stream(stripes, 0, count).distinct().sorted().toArray();
+    }
+
+    private static int stripe(int epicId) {
+        return Math.floorMod(Integer.hashCode(epicId), LOCK_STRIPES);
+    }
+}
@@ -0,0 +1,434 @@
+package manager;
+
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import util.Formats;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+// потоковое чтение задач из CSV: строки разбираются прямо по байтам файла, индексы колонок
+// определяются один раз по заголовку, числа и даты читаются без промежуточных строк.
+// Поддерживаются поля в кавычках (см. util.Csv)
+class CsvTaskReader {
+    // файлы больше порога отображаются в память, меньшие читаются в буфер целиком
+    private static final long MAP_THRESHOLD = 16 * 1024 * 1024;
+    // меньшие части не окупают параллельный разбор
+    private static final int MIN_CHUNK_SIZE = 1024 * 1024;
+    private static final String[] COLUMNS = {"id", "type", "name", "status", "description", "duration",
+            "startTime", "epicId"};
+    private static final int ID = 0;
+    private static final int TYPE = 1;
+    private static final int NAME = 2;
+    private static final int STATUS = 3;
+    private static final int DESCRIPTION = 4;
+    private static final int DURATION = 5;
+    private static final int START_TIME = 6;
+    private static final int EPIC_ID = 7;
+    private static final byte[][] TYPE_NAMES = names(TaskType.values());
+    private static final byte[][] STATUS_NAMES = names(TaskStatus.values());
+
+    private final ByteBuffer data;
+    private final int limit;
+    private int position;
+    // номер поля в строке для каждой колонки из COLUMNS, -1 - колонки нет в файле
+    private final int[] columns = new int[COLUMNS.length];
+    private int[] fieldStart = new int[COLUMNS.length];
+    private int[] fieldEnd = new int[COLUMNS.length];
+    private boolean[] fieldQuoted = new boolean[COLUMNS.length];
+    private int fieldCount;
+    private byte[] scratch = new byte[64];
+
+    CsvTaskReader(ByteBuffer data) {
+        this(data, data.position(), data.limit());
+    }
+
+    // читает только байты [from, to) общего буфера: чтение по абсолютным позициям не меняет его состояние
+    private CsvTaskReader(ByteBuffer data, int from, int to) {
+        this.data = data;
+        this.limit = to;
+        this.position = from;
+    }
+
+    // threads > 1 - файл делится на части по границам строк, которые разбираются параллельно
+    static Map<Integer, Task> readFile(Path file, int threads) throws IOException {
+        long startNanos = System.nanoTime();
+        ByteBuffer data = load(file);
+        CsvTaskReader header = new CsvTaskReader(data);
+        Map<Integer, Task> tasks = new LinkedHashMap<>();
+        int rows = 0;
+        int chunks = 1;
+        if (header.readHeader()) {
+            chunks = Math.max(1, Math.min(threads, (header.limit - header.position) / MIN_CHUNK_SIZE));
+            List<List<Task>> parsed = new ArrayList<>();
+            if (chunks == 1) {
+                parsed.add(header.readAll());
+            } else {
+                ForkJoinPool pool = new ForkJoinPool(chunks);
+                try {
+                    int[] bounds = split(data, header.position, header.limit, chunks, pool);
+                    List<ForkJoinTask<List<Task>>> parts = new ArrayList<>();
+                    for (int i = 0; i < chunks; i++) {
+                        CsvTaskReader reader = new CsvTaskReader(data, bounds[i], bounds[i + 1]);
+                        System.arraycopy(header.columns, 0, reader.columns, 0, COLUMNS.length);
+                        parts.add(pool.submit(reader::readAll));
+                    }
+                    for (ForkJoinTask<List<Task>> part : parts) {
+                        parsed.add(part.join());
+                    }
+                } finally {
+                    pool.shutdown();
+                }
+            }
+            // части склеиваются в порядке файла: при повторе id побеждает последняя строка
+            for (List<Task> part : parsed) {
+                rows += part.size();
+                part.forEach(task -> tasks.put(task.getId(), task));
+            }
+        }
+        long millis = Math.max(1, (System.nanoTime() - startNanos) / 1_000_000);
+        System.out.printf("INFO: Прочитано строк: %d за %d мс (%d строк/с), частей: %d\n", rows, millis,
+                rows * 1000L / millis, chunks);
+        return tasks;
+    }
+
+    // границы частей: примерно равные отрезки, сдвинутые к началу следующей строки. Перевод строки
+    // внутри кавычек границей не считается - находимся ли мы внутри кавычек, определяет четность
+    // числа кавычек до точки разреза, которое считается параллельно по отрезкам
+    private static int[] split(ByteBuffer data, int from, int to, int chunks, ForkJoinPool pool) {
+        int[] cuts = new int[chunks + 1];
+        for (int i = 0; i <= chunks; i++) {
+            cuts[i] = (int) (from + (long) (to - from) * i / chunks);
+        }
+        List<ForkJoinTask<Integer>> counts = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            int segment = i;
+            counts.add(pool.submit(() -> countQuotes(data, cuts[segment], cuts[segment + 1])));
+        }
+
+        int[] bounds = new int[chunks + 1];
+        bounds[0] = from;
+        bounds[chunks] = to;
+        int quotesBefore = 0;
+        for (int i = 1; i < chunks; i++) {
+            quotesBefore += counts.get(i - 1).join();
+            boolean inQuotes = quotesBefore % 2 == 1;
+            int position = cuts[i];
+            if (bounds[i - 1] > position) {
+                // предыдущая граница ушла дальше точки разреза, она уже начало строки вне кавычек
+                position = bounds[i - 1];
+                inQuotes = false;
+            }
+            while (position < to) {
+                byte b = data.get(position++);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    break;
+                }
+            }
+            bounds[i] = position;
+        }
+        return bounds;
+    }
+
+    private static int countQuotes(ByteBuffer data, int from, int to) {
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            if (data.get(i) == '"') {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private List<Task> readAll() {
+        List<Task> tasks = new ArrayList<>();
+        Task task;
+        while ((task = next()) != null) {
+            tasks.add(task);
+        }
+        return tasks;
+    }
+
+    // одна строка без заголовка, колонки в порядке FileBackedTaskManager.getCsvHeader()
+    static Task parseRow(String row) {
+        CsvTaskReader reader = new CsvTaskReader(ByteBuffer.wrap(row.getBytes(StandardCharsets.UTF_8)));
+        for (int i = 0; i < COLUMNS.length; i++) {
+            reader.columns[i] = i;
+        }
+        Task task = reader.next();
+        if (task == null) {
+            throw new IllegalArgumentException("Пустая строка CSV");
+        }
+        return task;
+    }
+
+    static ByteBuffer load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > MAP_THRESHOLD) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) size);
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // читаем до конца файла
+            }
+            return buffer.flip();
+        }
+    }
+
+    private boolean readHeader() {
+        if (!readFields()) {
+            return false;
+        }
+        Arrays.fill(columns, -1);
+        for (int field = 0; field < fieldCount; field++) {
+            String name = readFieldString(field);
+            for (int column = 0; column < COLUMNS.length; column++) {
+                if (COLUMNS[column].equals(name)) {
+                    columns[column] = field;
+                }
+            }
+        }
+        for (int column : new int[]{ID, TYPE, NAME, STATUS, DESCRIPTION}) {
+            if (columns[column] < 0) {
+                throw new IllegalArgumentException("В заголовке нет колонки " + COLUMNS[column]);
+            }
+        }
+        return true;
+    }
+
+    // следующая задача или null, если файл закончился
+    private Task next() {
+        if (!readFields()) {
+            return null;
+        }
+        TaskType type = TaskType.values()[match(TYPE, TYPE_NAMES, "тип задачи")];
+        Task task = switch (type) {
+            case TASK -> new Task();
+            case EPIC -> new Epic();
+            case SUBTASK -> new Subtask();
+        };
+        task.setId(readInt(ID));
+        task.setName(readString(NAME));
+        TaskStatus status = TaskStatus.values()[match(STATUS, STATUS_NAMES, "статус")];
+        task.setDescription(readString(DESCRIPTION));
+        if (task instanceof Epic epic) {
+            // статус эпика хранится в файле и восстанавливается как есть
+            epic.setStatusForce(status);
+            return epic;
+        }
+        task.setStatus(status);
+        task.setDuration(readLong(DURATION));
+        if (!isEmpty(START_TIME)) {
+            task.setStartTime(readDateTime(START_TIME));
+        }
+        if (task instanceof Subtask subtask) {
+            subtask.setEpicId(readInt(EPIC_ID));
+        }
+        return task;
+    }
+
+    // разбивает очередную непустую строку на поля; false - данных больше нет
+    private boolean readFields() {
+        while (position < limit && (data.get(position) == '\n' || data.get(position) == '\r')) {
+            position++;
+        }
+        if (position >= limit) {
+            return false;
+        }
+        fieldCount = 0;
+        while (true) {
+            int start = position;
+            int end;
+            boolean quoted = position < limit && data.get(position) == '"';
+            if (quoted) {
+                start = ++position;
+                while (position < limit) {
+                    if (data.get(position) == '"') {
+                        if (position + 1 < limit && data.get(position + 1) == '"') {
+                            position += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    position++;
+                }
+                end = position;
+                if (position < limit) {
+                    position++;
+                }
+                skipToDelimiter();
+            } else {
+                skipToDelimiter();
+                end = position;
+            }
+            addField(start, end, quoted);
+
+            if (position >= limit) {
+                return true;
+            }
+            byte delimiter = data.get(position++);
+            if (delimiter == '\r' && position < limit && data.get(position) == '\n') {
+                position++;
+            }
+            if (delimiter != ',') {
+                return true;
+            }
+        }
+    }
+
+    private void skipToDelimiter() {
+        while (position < limit) {
+            byte b = data.get(position);
+            if (b == ',' || b == '\n' || b == '\r') {
+                return;
+            }
+            position++;
+        }
+    }
+
+    private void addField(int start, int end, boolean quoted) {
+        if (fieldCount == fieldStart.length) {
+            fieldStart = Arrays.copyOf(fieldStart, fieldCount * 2);
+            fieldEnd = Arrays.copyOf(fieldEnd, fieldCount * 2);
+            fieldQuoted = Arrays.copyOf(fieldQuoted, fieldCount * 2);
+        }
+        fieldStart[fieldCount] = start;
+        fieldEnd[fieldCount] = end;
+        fieldQuoted[fieldCount] = quoted;
+        fieldCount++;
+    }
+
+    private int field(int column) {
+        int field = columns[column];
+        return field >= 0 && field < fieldCount ? field : -1;
+    }
+
+    private boolean isEmpty(int column) {
+        int field = field(column);
+        return field < 0 || fieldStart[field] == fieldEnd[field];
+    }
+
+    private String readString(int column) {
+        return readFieldString(field(column));
+    }
+
+    private String readFieldString(int field) {
+        if (field < 0) {
+            return "";
+        }
+        int length = fieldEnd[field] - fieldStart[field];
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        int size = 0;
+        for (int i = fieldStart[field]; i < fieldEnd[field]; i++) {
+            byte b = data.get(i);
+            scratch[size++] = b;
+            // удвоенная кавычка внутри поля в кавычках
+            if (b == '"' && fieldQuoted[field]) {
+                i++;
+            }
+        }
+        return new String(scratch, 0, size, StandardCharsets.UTF_8);
+    }
+
+    private int readInt(int column) {
+        long value = readLong(column);
+        if (value != (int) value) {
+            throw new NumberFormatException("Значение колонки " + COLUMNS[column] + " не помещается в int");
+        }
+        return (int) value;
+    }
+
+    private long readLong(int column) {
+        int field = field(column);
+        if (field < 0 || fieldStart[field] == fieldEnd[field]) {
+            throw new NumberFormatException("Пустое значение колонки " + COLUMNS[column]);
+        }
+        int i = fieldStart[field];
+        boolean negative = data.get(i) == '-';
+        if (negative) {
+            i++;
+        }
+        long value = 0;
+        for (; i < fieldEnd[field]; i++) {
+            int digit = data.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Некорректное число в колонке " + COLUMNS[column]);
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    // формат Formats.csvDateTimeFormat: dd.MM.yyyy HH:mm
+    private LocalDateTime readDateTime(int column) {
+        int field = field(column);
+        int start = fieldStart[field];
+        if (fieldEnd[field] - start != 16 || data.get(start + 2) != '.' || data.get(start + 5) != '.'
+                || data.get(start + 10) != ' ' || data.get(start + 13) != ':') {
+            return LocalDateTime.parse(readFieldString(field), Formats.csvDateTimeFormat);
+        }
+        return LocalDateTime.of(digits(start + 6, 4), digits(start + 3, 2), digits(start, 2),
+                digits(start + 11, 2), digits(start + 14, 2));
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = data.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new NumberFormatException("Некорректная дата");
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    // номер значения перечисления, имя которого совпадает с байтами поля
+    private int match(int column, byte[][] names, String what) {
+        int field = field(column);
+        if (field >= 0) {
+            int length = fieldEnd[field] - fieldStart[field];
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].length == length && equalsAt(fieldStart[field], names[i])) {
+                    return i;
+                }
+            }
+        }
+        throw new IllegalArgumentException("Неизвестный " + what + ": " + readFieldString(field));
+    }
+
+    private boolean equalsAt(int start, byte[] name) {
+        for (int i = 0; i < name.length; i++) {
+            if (data.get(start + i) != name[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[][] names(Enum<?>[] values) {
+        byte[][] names = new byte[values.length][];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = values[i].name().getBytes(StandardCharsets.US_ASCII);
+        }
+        return names;
+    }
+}
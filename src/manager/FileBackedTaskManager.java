@@ -4,20 +4,34 @@ import exception.ManagerSaveException;
 import task.Epic;
 import task.Subtask;
 import task.Task;
-import task.TaskStatus;
-import util.Formats;
-import util.ObjectBuilder;
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDateTime;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 public class FileBackedTaskManager extends InMemoryTaskManager {
     private static final Path DEFAULT_PATH = Paths.get("resources/tasks.txt");
     private static Path sourcePath;
-    private static final String csvHeader = "id,type,name,status,description,duration,startTime,epicId";
+    static final String csvHeader = "id,type,name,status,description,duration,startTime,epicId";
+    private PersistenceConfig config = new PersistenceConfig();
+    // заполняются только в режиме журнала
+    private Path journalPath;
+    private TaskJournal journal;
+    private ScheduledExecutorService maintenance;
+    private volatile int journalRecords;
+    private volatile GroupCommitWriter groupCommit;
+    private GroupCommitStats closedCommitStats = new GroupCommitStats(0, 0, 0, 0, 0);
 
     public FileBackedTaskManager() {
         sourcePath = DEFAULT_PATH;
@@ -26,15 +40,47 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     public FileBackedTaskManager(Path file) {
+        this(file, new PersistenceConfig());
+    }
+
+    public FileBackedTaskManager(Path file, PersistenceConfig config) {
+        this(file, config, Managers.getDefaultHistory());
+    }
+
+    public FileBackedTaskManager(Path file, PersistenceConfig config, HistoryManager historyManager) {
+        super(historyManager);
         sourcePath = file;
+        this.config = config;
         System.out.printf("INFO: Создан объект FileBackedTaskManager. Задачи хранятся %s\n",
                 sourcePath.toAbsolutePath());
+        if (config.isJournalEnabled()) {
+            openJournal(file);
+            // новый менеджер начинает с пустого хранилища, как и при полной перезаписи файла
+            compactJournal();
+        }
+        openGroupCommit();
     }
 
     public FileBackedTaskManager(Map<Integer, Task> taskMap) {
         super(taskMap);
     }
 
+    public FileBackedTaskManager(Map<Integer, Task> taskMap, HistoryManager historyManager) {
+        super(taskMap, historyManager);
+    }
+
+    // загруженный менеджер пишет в тот же файл и с теми же настройками, с которыми был прочитан
+    private FileBackedTaskManager(Map<Integer, Task> taskMap, Path file, PersistenceConfig config,
+                                  HistoryManager historyManager) {
+        super(taskMap, historyManager);
+        sourcePath = file;
+        this.config = config;
+        if (config.isJournalEnabled()) {
+            openJournal(file);
+        }
+        openGroupCommit();
+    }
+
     public String getCsvHeader() {
         return csvHeader;
     }
@@ -44,80 +90,28 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
     }
 
     public static FileBackedTaskManager loadFromFile(Path file) {
-        try (BufferedReader reader = Files.newBufferedReader(file)) {
-            if (!reader.ready()) {
-                System.out.println("ERROR: файл пустой");
-                return new FileBackedTaskManager();
-            }
-
-            String[] fieldsInFirstRow = reader.readLine().split(",");
-            Map<String, Integer> fields = new HashMap<>();
+        return loadFromFile(file, new PersistenceConfig());
+    }
 
-            for (int i = 0; i < fieldsInFirstRow.length; i++) {
-                fields.put(fieldsInFirstRow[i], i);
+    private static FileBackedTaskManager loadSnapshot(Path file, PersistenceConfig config,
+                                                      HistoryManager historyManager) {
+        try {
+            if (Files.size(file) == 0) {
+                System.out.println("ERROR: файл пустой");
+                return new FileBackedTaskManager(new LinkedHashMap<>(), file, config, historyManager);
             }
 
-            Map<Integer, Task> tmpTaskMap = new LinkedHashMap<>();
-
-            while (reader.ready()) {
-                String[] taskFromRow = reader.readLine().split(",");
-                TaskType taskType;
-                try {
-                     taskType = TaskType.valueOf(taskFromRow[fields.get("type")]);
-                } catch (IllegalArgumentException e) {
-                    System.out.println("ERROR: Ошибка при загрузке из файла: неизвестный тип задачи");
-                    return new FileBackedTaskManager();
-                }
-                switch (taskType) {
-                    case TASK:
-                        Task task = ObjectBuilder.of(Task::new)
-                                .with(Task::setId, Integer.parseInt(taskFromRow[fields.get("id")]))
-                                .with(Task::setName, taskFromRow[fields.get("name")])
-                                .with(Task::setStatus, TaskStatus.valueOf(taskFromRow[fields.get("status")]))
-                                .with(Task::setDescription, taskFromRow[fields.get("description")])
-                                .with(Task::setDuration, Long.parseLong(taskFromRow[fields.get("duration")]))
-                                .build();
-
-                        if (taskFromRow.length > 6) {
-                            task.setStartTime(LocalDateTime.parse(taskFromRow[fields.get("startTime")],
-                                    Formats.csvDateTimeFormat));
-                        }
-
-                        tmpTaskMap.put(task.getId(), task);
-                        break;
-                    case EPIC:
-                        Epic epic = ObjectBuilder.of(Epic::new)
-                                .with(Epic::setId, Integer.parseInt(taskFromRow[fields.get("id")]))
-                                .with(Epic::setName, taskFromRow[fields.get("name")])
-                                .with(Epic::setStatusForce, TaskStatus.valueOf(taskFromRow[fields.get("status")]))
-                                .with(Epic::setDescription, taskFromRow[fields.get("description")])
-                                .build();
-
-                        tmpTaskMap.put(epic.getId(), epic);
-                        break;
-                    case SUBTASK:
-                        Subtask subtask = ObjectBuilder.of(Subtask::new)
-                                .with(Subtask::setId, Integer.parseInt(taskFromRow[fields.get("id")]))
-                                .with(Subtask::setName, taskFromRow[fields.get("name")])
-                                .with(Subtask::setStatus, TaskStatus.valueOf(taskFromRow[fields.get("status")]))
-                                .with(Subtask::setDescription, taskFromRow[fields.get("description")])
-                                .with(Subtask::setDuration, Long.parseLong(taskFromRow[fields.get("duration")]))
-                                .with(Subtask::setEpicId, Integer.parseInt(taskFromRow[fields.get("epicId")]))
-                                .build();
-
-                        if (!taskFromRow[fields.get("startTime")].isBlank()) {
-                            subtask.setStartTime(LocalDateTime.parse(taskFromRow[fields.get("startTime")],
-                                    Formats.csvDateTimeFormat));
-                        }
-
-                        tmpTaskMap.put(subtask.getId(),subtask);
-                        break;
-                }
+            Map<Integer, Task> tmpTaskMap;
+            try {
+                tmpTaskMap = readTasks(file, config);
+            } catch (IllegalArgumentException e) {
+                System.out.println("ERROR: Ошибка при загрузке из файла: " + e.getMessage());
+                return new FileBackedTaskManager(new LinkedHashMap<>(), file, config, historyManager);
             }
 
             if (tmpTaskMap.isEmpty()) {
                 System.out.println("ERROR: в файле не указаны задачи");
-                return new FileBackedTaskManager();
+                return new FileBackedTaskManager(new LinkedHashMap<>(), file, config, historyManager);
             }
 
 
@@ -126,13 +120,70 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
                     Загружено задач из файла: %d
                     """, file.toAbsolutePath(), tmpTaskMap.size());
 
-            return new FileBackedTaskManager(tmpTaskMap);
+            return new FileBackedTaskManager(tmpTaskMap, file, config, historyManager);
         } catch (IOException e) {
             throw new ManagerSaveException("Ошибка во время работы с файлом");
         }
     }
 
+    // в режиме журнала поверх последнего снимка применяются записи журнала, иначе загружается только снимок
+    public static FileBackedTaskManager loadFromFile(Path file, PersistenceConfig config) {
+        return loadFromFile(file, config, Managers.getDefaultHistory());
+    }
+
+    public static FileBackedTaskManager loadFromFile(Path file, PersistenceConfig config,
+                                                     HistoryManager historyManager) {
+        if (!config.isJournalEnabled()) {
+            return loadSnapshot(file, config, historyManager);
+        }
+        try {
+            Map<Integer, Task> tmpTaskMap = Files.exists(file) && Files.size(file) > 0
+                    ? readTasks(file, config)
+                    : new LinkedHashMap<>();
+            int snapshotSize = tmpTaskMap.size();
+            List<String> records = TaskJournal.readRecords(file);
+            for (String record : records) {
+                switch (record.charAt(0)) {
+                    case TaskJournal.UPSERT -> {
+                        Task task = CsvTaskReader.parseRow(record.substring(1));
+                        tmpTaskMap.put(task.getId(), task);
+                    }
+                    case TaskJournal.DELETE -> tmpTaskMap.remove(Integer.parseInt(record.substring(1)));
+                    case TaskJournal.CLEAR -> tmpTaskMap.clear();
+                    default -> System.out.println("WARN: Неизвестная запись журнала: " + record);
+                }
+            }
+            // новые задачи не должны получить идентификаторы загруженных
+            tmpTaskMap.keySet().stream()
+                    .max(Integer::compare)
+                    .ifPresent(maxId -> counter.accumulateAndGet(maxId, Math::max));
+
+            System.out.printf("""
+                    INFO: Создан объект FileBackedTaskManager с загруженными задачами из файла %s
+                    Задач в снимке: %d, записей в журнале: %d, задач после восстановления: %d
+                    """, file.toAbsolutePath(), snapshotSize, records.size(), tmpTaskMap.size());
+
+            return new FileBackedTaskManager(tmpTaskMap, file, config, historyManager);
+        } catch (IOException | IllegalArgumentException e) {
+            throw new ManagerSaveException("Ошибка во время восстановления из файла " + file);
+        }
+    }
+
+    // формат определяется по сигнатуре файла, поэтому CSV и двоичный снимок читаются при любой настройке
+    private static Map<Integer, Task> readTasks(Path file, PersistenceConfig config) throws IOException {
+        return BinarySnapshot.isBinary(file)
+                ? BinarySnapshot.read(file)
+                : CsvTaskReader.readFile(file, config.getLoadThreads());
+    }
+
     private void save() {
+        if (config.getSnapshotFormat() == SnapshotFormat.BINARY) {
+            // как и при сворачивании журнала, старый снимок заменяется только полностью записанным новым
+            Path tmpPath = getTmpPath(sourcePath);
+            BinarySnapshot.write(taskMap.values(), tmpPath);
+            replaceSnapshot(tmpPath, sourcePath);
+            return;
+        }
         try (BufferedWriter writer = Files.newBufferedWriter(sourcePath);
              BufferedReader reader = Files.newBufferedReader(sourcePath)) {
             if (taskMap.isEmpty()) {
@@ -157,27 +208,287 @@ public class FileBackedTaskManager extends InMemoryTaskManager {
         }
     }
 
+    // переносит состояние в новый снимок и очищает журнал; снимок сначала пишется во временный файл,
+    // поэтому при сбое на диске остается либо старый снимок с журналом, либо новый
+    public void compact() {
+        compactJournal();
+    }
+
+    // конструктор и фоновое сворачивание не должны вызывать переопределяемый compact()
+    private synchronized void compactJournal() {
+        if (journal == null) {
+            return;
+        }
+        Path tmpPath = getTmpPath(journalPath);
+        if (config.getSnapshotFormat() == SnapshotFormat.BINARY) {
+            BinarySnapshot.write(taskMap.values(), tmpPath);
+        } else {
+            writeCsvSnapshot(tmpPath);
+        }
+        replaceSnapshot(tmpPath, journalPath);
+        journal.truncate();
+        journalRecords = 0;
+    }
+
+    private static Path getTmpPath(Path file) {
+        return file.resolveSibling(file.getFileName() + ".tmp");
+    }
+
+    private static void replaceSnapshot(Path tmpPath, Path target) {
+        try {
+            Files.move(tmpPath, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время замены снимка " + target);
+        }
+    }
+
+    private void writeCsvSnapshot(Path target) {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            StringBuilder snapshot = new StringBuilder();
+            if (!taskMap.isEmpty()) {
+                snapshot.append(csvHeader).append(System.lineSeparator());
+                taskMap.values().forEach(task -> snapshot.append(task.toCsvString()).append(System.lineSeparator()));
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(snapshot.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время записи снимка " + target);
+        }
+    }
+
+    // записывает накопленные изменения, сворачивает журнал и останавливает фоновые потоки
+    public void close() {
+        if (groupCommit != null) {
+            groupCommit.close();
+            closedCommitStats = groupCommit.getStats();
+            groupCommit = null;
+        }
+        synchronized (this) {
+            if (journal == null) {
+                return;
+            }
+            compactJournal();
+            journal.close();
+            journal = null;
+            maintenance.shutdownNow();
+        }
+    }
+
+    public GroupCommitStats getCommitStats() {
+        GroupCommitWriter writer = groupCommit;
+        return writer != null ? writer.getStats() : closedCommitStats;
+    }
+
+    synchronized long getJournalSyncCount() {
+        return journal != null ? journal.getSyncCount() : 0;
+    }
+
+    private void openJournal(Path file) {
+        journalPath = file;
+        maintenance = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "task-journal");
+            thread.setDaemon(true);
+            return thread;
+        });
+        journal = new TaskJournal(file, config.getSyncPolicy(), config.getSyncIntervalMillis(), maintenance);
+        long interval = config.getCompactionIntervalMillis();
+        if (interval > 0) {
+            maintenance.scheduleWithFixedDelay(() -> {
+                try {
+                    if (journalRecords > 0) {
+                        compactJournal();
+                    }
+                } catch (ManagerSaveException e) {
+                    System.out.println("ERROR: " + e.getMessage());
+                }
+            }, interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // в режиме журнала записи дописываются сразу, а общий fsync выполняет поток групповой записи;
+    // без журнала поток один раз перезаписывает файл за все изменения окна
+    private void openGroupCommit() {
+        if (config.getGroupCommitWindowMillis() <= 0) {
+            return;
+        }
+        Runnable commitAction;
+        if (journal == null) {
+            commitAction = () -> {
+                synchronized (this) {
+                    save();
+                }
+            };
+        } else if (config.getSyncPolicy() == SyncPolicy.OS) {
+            // записи журнала уже переданы ОС при добавлении, сброс на диск остается на ее усмотрение
+            commitAction = () -> { };
+        } else {
+            commitAction = journal::sync;
+        }
+        groupCommit = new GroupCommitWriter(commitAction, config.getGroupCommitWindowMillis());
+    }
+
+    // задачи, которые изменение может затронуть: сама задача, ее текущий и прежний эпик, подзадачи эпика
+    private Set<Integer> getAffectedIds(Integer id, Task task) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        if (id != null) {
+            ids.add(id);
+            Integer indexedEpicId = subtaskEpics.get(id);
+            if (indexedEpicId != null) {
+                ids.add(indexedEpicId);
+            }
+            Set<Integer> subtaskIds = epicSubtasks.get(id);
+            if (subtaskIds != null && task == null) {
+                ids.addAll(subtaskIds);
+            }
+        }
+        if (task != null && task.getClass() == Subtask.class && ((Subtask) task).getEpicId() != null) {
+            ids.add(((Subtask) task).getEpicId());
+        }
+        return ids;
+    }
+
+    // вызывается под блокировкой менеджера, ожидание записи - уже без нее
+    private CompletableFuture<Void> persist(Set<Integer> ids) {
+        if (journal == null) {
+            return commit();
+        }
+        for (Integer id : ids) {
+            Task task = taskMap.get(id);
+            if (task != null) {
+                journal.append(TaskJournal.UPSERT, task.toCsvString());
+            } else {
+                journal.append(TaskJournal.DELETE, String.valueOf(id));
+            }
+            journalRecords++;
+        }
+        return commit();
+    }
+
+    private CompletableFuture<Void> commit() {
+        if (groupCommit != null) {
+            return groupCommit.submit();
+        }
+        if (journal == null) {
+            save();
+        }
+        return CompletableFuture.completedFuture(null);
+    }
+
+    private void awaitCommit(CompletableFuture<Void> commit) {
+        if (!config.isWaitForDurability()) {
+            return;
+        }
+        try {
+            commit.join();
+        } catch (CompletionException e) {
+            throw new ManagerSaveException("Изменение не записано на диск: " + e.getCause().getMessage());
+        }
+    }
+
     @Override
     public void clearTasks() {
-        super.clearTasks();
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            super.clearTasks();
+            if (journal != null) {
+                journal.append(TaskJournal.CLEAR, "");
+                journalRecords++;
+            }
+            commit = commit();
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void addTask(Task task) {
-        super.addTask(task);
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            Set<Integer> ids = getAffectedIds(task.getId(), task);
+            super.addTask(task);
+            ids.addAll(getAffectedIds(task.getId(), task));
+            commit = persist(ids);
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void updateTask(Task task) {
-        super.updateTask(task);
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            Set<Integer> ids = getAffectedIds(task.getId(), task);
+            super.updateTask(task);
+            commit = persist(ids);
+        }
+        awaitCommit(commit);
+    }
+
+    // весь пакет записывается на диск одной фиксацией
+    @Override
+    public BatchResult addTasks(List<? extends Task> tasks) {
+        BatchResult result;
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            Set<Integer> ids = new LinkedHashSet<>();
+            tasks.stream()
+                    .filter(Objects::nonNull)
+                    .forEach(task -> ids.addAll(getAffectedIds(task.getId(), task)));
+            result = super.addTasks(tasks);
+            if (!result.isApplied()) {
+                return result;
+            }
+            tasks.forEach(task -> ids.addAll(getAffectedIds(task.getId(), task)));
+            commit = persist(ids);
+        }
+        awaitCommit(commit);
+        return result;
+    }
+
+    @Override
+    public BatchResult deleteTasks(Collection<Integer> ids) {
+        BatchResult result;
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            Set<Integer> affectedIds = new LinkedHashSet<>();
+            ids.forEach(id -> affectedIds.addAll(getAffectedIds(id, null)));
+            result = super.deleteTasks(ids);
+            if (!result.isApplied()) {
+                return result;
+            }
+            commit = persist(affectedIds);
+        }
+        awaitCommit(commit);
+        return result;
+    }
+
+    // все задачи типа сохраняются одним коммитом
+    @Override
+    public void deleteTasksByType(Class<?> cl) {
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            Set<Integer> affectedIds = new LinkedHashSet<>();
+            tasksByType.forEach((type, tasks) -> {
+                if (cl.isAssignableFrom(type)) {
+                    tasks.keySet().forEach(id -> affectedIds.addAll(getAffectedIds(id, null)));
+                }
+            });
+            super.deleteTasksByType(cl);
+            commit = persist(affectedIds);
+        }
+        awaitCommit(commit);
     }
 
     @Override
     public void deleteTaskById(Integer id) {
-        super.deleteTaskById(id);
-        save();
+        CompletableFuture<Void> commit;
+        synchronized (this) {
+            Set<Integer> ids = getAffectedIds(id, null);
+            super.deleteTaskById(id);
+            commit = persist(ids);
+        }
+        awaitCommit(commit);
     }
 }
@@ -0,0 +1,10 @@
+package manager;
+
+// счетчики GroupCommitWriter: число записей на диск, число объединенных в них изменений и задержка записи
+public record GroupCommitStats(long commits, long mutations, int maxBatchSize, double averageLatencyMillis,
+                               double maxLatencyMillis) {
+
+    public double averageBatchSize() {
+        return commits == 0 ? 0 : (double) mutations / commits;
+    }
+}
@@ -0,0 +1,109 @@
+package manager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+// поток групповой записи: изменения, пришедшие в течение окна, сохраняются одной записью на диск.
+// Отсчет окна начинается с первого изменения, ожидающего записи
+class GroupCommitWriter {
+    private final Runnable commitAction;
+    private final long windowNanos;
+    private final Thread thread;
+    private List<CompletableFuture<Void>> pending = new ArrayList<>();
+    private long firstPendingNanos;
+    private boolean running = true;
+
+    private long commits;
+    private long mutations;
+    private int maxBatchSize;
+    private long totalLatencyNanos;
+    private long maxLatencyNanos;
+
+    GroupCommitWriter(Runnable commitAction, long windowMillis) {
+        this.commitAction = commitAction;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        thread = new Thread(this::run, "group-commit");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // завершается, когда изменение записано на диск
+    synchronized CompletableFuture<Void> submit() {
+        CompletableFuture<Void> commit = new CompletableFuture<>();
+        if (!running) {
+            commit.completeExceptionally(new IllegalStateException("Запись на диск остановлена"));
+            return commit;
+        }
+        if (pending.isEmpty()) {
+            firstPendingNanos = System.nanoTime();
+            notifyAll();
+        }
+        pending.add(commit);
+        return commit;
+    }
+
+    synchronized GroupCommitStats getStats() {
+        return new GroupCommitStats(commits, mutations, maxBatchSize,
+                commits == 0 ? 0 : totalLatencyNanos / 1_000_000.0 / commits, maxLatencyNanos / 1_000_000.0);
+    }
+
+    // записывает накопленные изменения и останавливает поток
+    void close() {
+        synchronized (this) {
+            running = false;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        while (true) {
+            List<CompletableFuture<Void>> batch;
+            long batchStartNanos;
+            synchronized (this) {
+                try {
+                    while (pending.isEmpty() && running) {
+                        wait();
+                    }
+                    long remaining;
+                    while (running && (remaining = firstPendingNanos + windowNanos - System.nanoTime()) > 0) {
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                    }
+                } catch (InterruptedException e) {
+                    running = false;
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                batchStartNanos = firstPendingNanos;
+                pending = new ArrayList<>();
+            }
+            commit(batch, batchStartNanos);
+        }
+    }
+
+    private void commit(List<CompletableFuture<Void>> batch, long batchStartNanos) {
+        try {
+            commitAction.run();
+            long latency = System.nanoTime() - batchStartNanos;
+            synchronized (this) {
+                commits++;
+                mutations += batch.size();
+                maxBatchSize = Math.max(maxBatchSize, batch.size());
+                totalLatencyNanos += latency;
+                maxLatencyNanos = Math.max(maxLatencyNanos, latency);
+            }
+            batch.forEach(commit -> commit.complete(null));
+        } catch (RuntimeException e) {
+            System.out.println("ERROR: Не удалось записать изменения на диск: " + e.getMessage());
+            batch.forEach(commit -> commit.completeExceptionally(e));
+        }
+    }
+}
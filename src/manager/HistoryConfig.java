@@ -0,0 +1,59 @@
+package manager;
+
+public class HistoryConfig {
+    // максимум задач в истории; при переполнении вытесняется задача, которую дольше всех не просматривали.
+    // 0 - без ограничения
+    private int capacity = 10_000;
+    // через сколько миллисекунд после последнего просмотра задача выпадает из истории, 0 - не выпадает
+    private long ttlMillis = 0;
+    // PartitionedHistoryManager: раздел клиента удаляется после стольких миллисекунд без обращений, 0 - не удаляется
+    private long partitionIdleMillis = 30 * 60 * 1000;
+    // Managers.getDefaultHistory(): отдельная история для каждого клиента (PartitionedHistoryManager)
+    private boolean partitioned = false;
+
+    public HistoryConfig() {
+    }
+
+    // настройки из системных свойств, например -Dkanban.history.capacity=1000 -Dkanban.history.ttlMillis=3600000
+    public static HistoryConfig fromSystemProperties() {
+        HistoryConfig config = new HistoryConfig();
+        config.setCapacity(Integer.getInteger("kanban.history.capacity", config.getCapacity()));
+        config.setTtlMillis(Long.getLong("kanban.history.ttlMillis", config.getTtlMillis()));
+        config.setPartitionIdleMillis(Long.getLong("kanban.history.partitionIdleMillis",
+                config.getPartitionIdleMillis()));
+        config.setPartitioned(Boolean.getBoolean("kanban.history.partitioned"));
+        return config;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public void setTtlMillis(long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+    }
+
+    public long getPartitionIdleMillis() {
+        return partitionIdleMillis;
+    }
+
+    public void setPartitionIdleMillis(long partitionIdleMillis) {
+        this.partitionIdleMillis = partitionIdleMillis;
+    }
+
+    public boolean isPartitioned() {
+        return partitioned;
+    }
+
+    public void setPartitioned(boolean partitioned) {
+        this.partitioned = partitioned;
+    }
+}
@@ -1,6 +1,7 @@
 package manager;
 
 import task.Task;
+import java.util.Collection;
 import java.util.List;
 
 public interface HistoryManager {
@@ -11,4 +12,8 @@ public interface HistoryManager {
     void clearHistory();
 
     void remove(Integer id);
+
+    default void removeAll(Collection<Integer> ids) {
+        ids.forEach(this::remove);
+    }
 }
@@ -0,0 +1,28 @@
+package manager;
+
+// ключ раздела истории просмотров для текущего потока. HTTP-сервер выставляет его из заголовка запроса
+// на время обработки; вне запроса и без заголовка используется общий раздел DEFAULT
+public final class HistorySession {
+    public static final String DEFAULT = "default";
+    private static final ThreadLocal<String> current = new ThreadLocal<>();
+
+    private HistorySession() {
+    }
+
+    public static void set(String key) {
+        if (key == null || key.isBlank()) {
+            current.remove();
+        } else {
+            current.set(key);
+        }
+    }
+
+    public static void clear() {
+        current.remove();
+    }
+
+    public static String get() {
+        String key = current.get();
+        return key != null ? key : DEFAULT;
+    }
+}
@@ -0,0 +1,5 @@
+package manager;
+
+// счетчики истории просмотров: текущий размер, вытеснено по переполнению, выпало по сроку давности
+public record HistoryStats(int size, long evictions, long expirations) {
+}
@@ -1,33 +1,97 @@
 package manager;
 
-import task.Epic;
 import task.Subtask;
 import task.Task;
 import java.util.*;
+import java.util.function.LongSupplier;
 
+// история просмотров: список узлов от давно просмотренных к недавним и индекс id -> узел.
+// Вытеснение по размеру и сроку давности снимает узлы с начала списка за O(1).
+// Открытые методы синхронизированы на самом объекте истории
 public class InMemoryHistoryManager implements HistoryManager {
     private Node<Task> firstElement;
     private Node<Task> lastElement;
     public final HashMap<Integer, Node<Task>> historyMap = new HashMap<>();
+    // подзадачи в истории по эпику, к которому они относились на момент просмотра - для каскадного удаления
+    private final Map<Integer, Set<Integer>> subtasksByEpic = new HashMap<>();
+    private final int capacity;
+    private final long ttlMillis;
+    private final LongSupplier clock;
+    private long evictions;
+    private long expirations;
+
+    public InMemoryHistoryManager() {
+        this(new HistoryConfig());
+    }
+
+    public InMemoryHistoryManager(HistoryConfig config) {
+        this(config, System::currentTimeMillis);
+    }
 
-    public void add(Task task)  {
+    InMemoryHistoryManager(HistoryConfig config, LongSupplier clock) {
+        this.capacity = config.getCapacity();
+        this.ttlMillis = config.getTtlMillis();
+        this.clock = clock;
+    }
+
+    // в истории хранится неизменяемый снимок задачи на момент просмотра: он создается один раз
+    // и дальше отдается всем читателям без копирования
+    public synchronized void add(Task task)  {
         if (Objects.isNull(task)) {
             return;
         }
-        try {
-            Task clonedTask = task.clone();
-            linkLast(clonedTask, historyMap.containsKey(clonedTask.getId()));
-            historyMap.put(task.getId(), lastElement);
-        } catch (CloneNotSupportedException e) {
-            System.out.println("WARN: Ошибка при добавлении задачи в историю");
+        Task snapshot = task.snapshot();
+        long now = clock.getAsLong();
+        unlink(snapshot.getId());
+        linkLast(snapshot);
+        lastElement.viewedAt = now;
+        historyMap.put(snapshot.getId(), lastElement);
+        if (snapshot instanceof Subtask subtask && subtask.getEpicId() != null) {
+            subtasksByEpic.computeIfAbsent(subtask.getEpicId(), key -> new HashSet<>()).add(subtask.getId());
+        }
+        expire(now);
+        while (capacity > 0 && historyMap.size() > capacity) {
+            unlinkFirst();
+            evictions++;
         }
     }
 
-    private void linkLast(Task task, boolean nodeAlreadyExist) {
-        if (nodeAlreadyExist) {
-            removeNode(historyMap.get(task.getId()));
+    // узлы упорядочены по времени просмотра, поэтому устаревшие всегда лежат в начале списка
+    private void expire(long now) {
+        if (ttlMillis <= 0) {
+            return;
         }
+        while (firstElement != null && now - firstElement.viewedAt >= ttlMillis) {
+            unlinkFirst();
+            expirations++;
+        }
+    }
+
+    private void unlinkFirst() {
+        unlink(firstElement.data.getId());
+    }
 
+    // убирает задачу из списка и обоих индексов
+    private void unlink(Integer id) {
+        Node<Task> node = historyMap.remove(id);
+        if (node == null) {
+            return;
+        }
+        if (node.data instanceof Subtask subtask && subtask.getEpicId() != null) {
+            Set<Integer> subtaskIds = subtasksByEpic.get(subtask.getEpicId());
+            subtaskIds.remove(id);
+            if (subtaskIds.isEmpty()) {
+                subtasksByEpic.remove(subtask.getEpicId());
+            }
+        }
+        removeNode(node);
+    }
+
+    public synchronized HistoryStats getStats() {
+        return new HistoryStats(historyMap.size(), evictions, expirations);
+    }
+
+    private void linkLast(Task task) {
         Node<Task> last = lastElement;
         Node<Task> newElement = new Node<>(last, task, null);
         lastElement = newElement;
@@ -61,26 +125,21 @@ public class InMemoryHistoryManager implements HistoryManager {
     }
 
     private List<Task> getTasks() {
-        List<Task> tasks = new ArrayList<>();
-        Node<Task> current = firstElement;
-        while (current != null) {
-            try {
-                tasks.add(current.data.clone());
-            } catch (CloneNotSupportedException e) {
-                System.out.println("WARN: Ошибка при клонировании задачи");
-            }
-            current = current.next;
+        List<Task> tasks = new ArrayList<>(historyMap.size());
+        for (Node<Task> current = firstElement; current != null; current = current.next) {
+            tasks.add(current.data);
         }
         return tasks;
     }
 
     @Override
-    public List<Task> getHistory() {
+    public synchronized List<Task> getHistory() {
+        expire(clock.getAsLong());
         return getTasks();
     }
 
     @Override
-    public void clearHistory() {
+    public synchronized void clearHistory() {
         for (Node<Task> x = firstElement; x != null; ) {
             Node<Task> next = x.next;
             x.data = null;
@@ -90,30 +149,25 @@ public class InMemoryHistoryManager implements HistoryManager {
         }
         firstElement = lastElement = null;
         historyMap.clear();
+        subtasksByEpic.clear();
     }
 
+    // вместе с эпиком удаляются просмотренные подзадачи этого эпика: по индексу, без обхода всей истории
     @Override
-    public void remove(Integer id) {
-        if (id == null || !historyMap.containsKey(id)) return;
-        Task deletedTask = historyMap.get(id).data;
-        // при удалении эпика, сначала удаляем его подзадачи
-        if (deletedTask.getClass() == Epic.class) {
-            List<Integer> subtaskIds = historyMap.values().stream()
-                    .map(taskNode -> taskNode.data)
-                    .filter(Subtask.class::isInstance)
-                    .map(Subtask.class::cast)
-                    .filter(subtask -> Objects.equals(subtask.getEpicId(), deletedTask.getId()))
-                    .map(Task::getId)
-                    .toList();
-
-            subtaskIds.forEach(subtask -> {
-                removeNode(historyMap.get(subtask));
-                historyMap.remove(subtask);
-            });
-
+    public synchronized void remove(Integer id) {
+        if (id == null) {
+            return;
+        }
+        Set<Integer> subtaskIds = subtasksByEpic.remove(id);
+        if (subtaskIds != null) {
+            subtaskIds.forEach(subtaskId -> removeNode(historyMap.remove(subtaskId)));
         }
-        removeNode(historyMap.get(id));
-        historyMap.remove(id);
+        unlink(id);
     }
-}
 
+    // удаление набора задач за один захват блокировки
+    @Override
+    public synchronized void removeAll(Collection<Integer> ids) {
+        ids.forEach(this::remove);
+    }
+}
@@ -4,18 +4,106 @@ import exception.NotFoundException;
 import task.*;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class InMemoryTaskManager implements TaskManager {
-    protected static Integer counter = 0;
-    protected Map<Integer, Task> taskMap = new HashMap<>();
-    protected final HistoryManager historyManager = Managers.getDefaultHistory();
-    public final Map<LocalDateTime, Task> prioritizedTasks = new TreeMap<>();
+    protected static final AtomicInteger counter = new AtomicInteger();
+    private final StorageType storage;
+    protected Map<Integer, Task> taskMap;
+    protected final HistoryManager historyManager;
+    public final NavigableMap<LocalDateTime, Task> prioritizedTasks;
+    // под каким временем начала задача лежит в prioritizedTasks
+    protected final Map<Integer, LocalDateTime> prioritizedStartTimes;
+    // индекс подзадач: идентификатор эпика -> идентификаторы его подзадач в порядке добавления
+    protected final Map<Integer, Set<Integer>> epicSubtasks;
+    // обратная связь подзадача -> эпик, под которым она проиндексирована (epicId у объекта могут поменять)
+    protected final Map<Integer, Integer> subtaskEpics;
+    // задачи каждого типа в порядке идентификаторов - для постраничной выдачи
+    protected final Map<Class<?>, NavigableMap<Integer, Task>> tasksByType;
+    // индексы для findTasks: статус -> задачи и время начала -> задачи. Задачи меняют на месте,
+    // поэтому для каждой запоминается, под каким статусом и временем она проиндексирована
+    protected final Map<TaskStatus, NavigableMap<Integer, Task>> tasksByStatus;
+    protected final Map<Integer, TaskStatus> indexedStatuses;
+    protected final NavigableMap<LocalDateTime, NavigableMap<Integer, Task>> tasksByStartTime;
+    protected final Map<Integer, LocalDateTime> indexedStartTimes;
+    // версии для условных GET: изменение получает следующий номер общего счетчика, а задача, список задач типа,
+    // список подзадач эпика и список по приоритету помнят номер своего последнего изменения
+    private final AtomicLong versionCounter = new AtomicLong();
+    private final ResourceVersion initialVersion = ResourceVersion.initial();
+    protected final Map<Integer, ResourceVersion> taskVersions;
+    protected final Map<Class<?>, ResourceVersion> typeVersions;
+    protected final Map<Integer, ResourceVersion> subtaskListVersions;
+    private final AtomicReference<ResourceVersion> prioritizedVersion = new AtomicReference<>(initialVersion);
+    // подписчики на изменения задач; пока их нет, снимки для событий не создаются
+    private final List<TaskListener> listeners = new CopyOnWriteArrayList<>();
 
     public InMemoryTaskManager() {
+        this(Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(HistoryManager historyManager) {
+        this(historyManager, StorageType.PLAIN);
+    }
+
+    InMemoryTaskManager(HistoryManager historyManager, StorageType storage) {
+        this.historyManager = historyManager;
+        this.storage = storage;
+        taskMap = storage.createMap();
+        prioritizedTasks = storage.createSortedMap();
+        prioritizedStartTimes = storage.createMap();
+        epicSubtasks = storage.createMap();
+        subtaskEpics = storage.createMap();
+        tasksByType = Map.of(
+                Task.class, storage.createSortedMap(),
+                Epic.class, storage.createSortedMap(),
+                Subtask.class, storage.createSortedMap());
+        tasksByStatus = new EnumMap<>(TaskStatus.class);
+        for (TaskStatus status : TaskStatus.values()) {
+            tasksByStatus.put(status, storage.createSortedMap());
+        }
+        indexedStatuses = storage.createMap();
+        tasksByStartTime = storage.createSortedMap();
+        indexedStartTimes = storage.createMap();
+        taskVersions = storage.createMap();
+        typeVersions = storage.createMap();
+        subtaskListVersions = storage.createMap();
     }
 
     public InMemoryTaskManager(Map<Integer, Task> taskMap) {
+        this(taskMap, Managers.getDefaultHistory());
+    }
+
+    public InMemoryTaskManager(Map<Integer, Task> taskMap, HistoryManager historyManager) {
+        this(historyManager);
         this.taskMap = taskMap;
+        // индексы подзадач, агрегаты эпиков и список по приоритету строятся за один проход.
+        // Переопределяемые методы индексации здесь не вызываются: наследник еще не инициализирован
+        List<Epic> epics = new ArrayList<>();
+        for (Task task : taskMap.values()) {
+            indexType(task, null);
+            putQueryIndex(task);
+            if (task instanceof Epic epic) {
+                epics.add(epic);
+                continue;
+            }
+            moveSubtask(task);
+            if (task instanceof Subtask subtask && taskMap.get(subtask.getEpicId()) instanceof Epic epic) {
+                epic.putSubtask(subtask);
+            }
+            if (task.getStartTime().isPresent()) {
+                putPrioritized(task);
+            }
+        }
+        // статус эпика берем из файла, сроки восстанавливаем по подзадачам
+        for (Epic epic : epics) {
+            TaskStatus storedStatus = epic.getStatus();
+            epic.recalculate();
+            epic.setStatusForce(storedStatus);
+            putQueryIndex(epic);
+        }
     }
 
     @Override
@@ -27,9 +115,22 @@ public class InMemoryTaskManager implements TaskManager {
     public void clearTasks() {
         System.out.println("INFO: Полное удаление списка задач");
         taskMap.clear();
+        epicSubtasks.clear();
+        subtaskEpics.clear();
         prioritizedTasks.clear();
+        prioritizedStartTimes.clear();
+        tasksByType.values().forEach(Map::clear);
+        tasksByStatus.values().forEach(Map::clear);
+        indexedStatuses.clear();
+        tasksByStartTime.clear();
+        indexedStartTimes.clear();
+        taskVersions.clear();
+        subtaskListVersions.clear();
+        ResourceVersion version = nextVersion();
+        tasksByType.keySet().forEach(type -> typeVersions.merge(type, version, ResourceVersion::latest));
+        prioritizedVersion.accumulateAndGet(version, ResourceVersion::latest);
         clearHistory();
-        counter = 0;
+        counter.set(0);
     }
 
     public void clearHistory() {
@@ -39,15 +140,33 @@ public class InMemoryTaskManager implements TaskManager {
     //в историю просмотра записываются только вызовы извне по идентификатору
     @Override
     public Task getTaskById(Integer id) {
-        if (taskMap.containsKey(id)) {
-            addToViewed(taskMap.get(id));
-            return taskMap.get(id);
+        Task task = taskMap.get(id);
+        if (task != null) {
+            addToViewed(task);
+            return task;
         } else {
             throw new NotFoundException("Объект не найден");
         }
 
     }
 
+    // один поиск на запрос: задача типа type (null - любого типа); в историю просмотров попадает
+    // только найденная задача нужного типа и только при markViewed
+    @Override
+    public TaskLookup lookupTask(Integer id, Class<? extends Task> type, boolean markViewed) {
+        Task task = id != null ? taskMap.get(id) : null;
+        if (task == null) {
+            return TaskLookup.missing();
+        }
+        if (type != null && task.getClass() != type) {
+            return TaskLookup.wrongType();
+        }
+        if (markViewed) {
+            addToViewed(task);
+        }
+        return TaskLookup.found(task);
+    }
+
     //метод для внутреннего использования, в нем не обновляется информация о просмотре задач
     public Task getTaskById(Integer id, Boolean innerUse) {
         if (innerUse) {
@@ -68,9 +187,12 @@ public class InMemoryTaskManager implements TaskManager {
                 int id = getNewTaskId();
                 task.setId(id);
                 taskMap.put(id, task);
-                calculateEpicStatus(task);
-                calculateEpicDates(task);
+                indexType(task, null);
+                indexSubtask(task);
+                calculateEpic(task);
                 addToPrioritized(task);
+                indexQuery(task);
+                touch(TaskEvent.Type.CREATED, task);
                 System.out.println("\nINFO: Добавлена новая задача с идентификатором " + id);
             }
         } else {
@@ -78,47 +200,79 @@ public class InMemoryTaskManager implements TaskManager {
         }
     }
 
+    // задачи в prioritizedTasks между собой не пересекаются, поэтому достаточно
+    // сравнить новую задачу с ближайшими соседями по времени начала
     public boolean hasDateIntersect(Task task) {
-        if (task.getStartTime().isPresent()) {
-            if (task.getId() != null) {
-                Task sameTaskFromPrioritized = prioritizedTasks.get(task.getStartTime().get());
-                if (sameTaskFromPrioritized != null
-                        && sameTaskFromPrioritized.getStartTime().get().equals(task.getStartTime().get())
-                        && sameTaskFromPrioritized.getDuration().equals(task.getDuration())) {
-                    return false;
-                }
-            }
-            return prioritizedTasks.values().stream()
-                    .anyMatch(prioritizedTask -> (task.getStartTime().get().isBefore(prioritizedTask.getStartTime().get()) &&
-                            task.getEndTime().get().isAfter(prioritizedTask.getStartTime().get())) ||
-                            (task.getStartTime().get().isBefore(prioritizedTask.getEndTime().get())));
+        return hasDateIntersect(task, task.getId() != null ? Set.of(task.getId()) : Set.of());
+    }
+
+    // ignoredIds - задачи, текущие интервалы которых не учитываются: сама обновляемая задача или весь пакет
+    private boolean hasDateIntersect(Task task, Set<Integer> ignoredIds) {
+        if (task.getStartTime().isEmpty() || task.getClass() == Epic.class) {
+            return false;
+        }
+        LocalDateTime startTime = task.getStartTime().get();
+        LocalDateTime endTime = getEndTime(task);
+
+        Map.Entry<LocalDateTime, Task> before = prioritizedTasks.floorEntry(startTime);
+        while (before != null && ignoredIds.contains(before.getValue().getId())) {
+            before = prioritizedTasks.lowerEntry(before.getKey());
+        }
+        if (before != null && (before.getKey().equals(startTime) || getEndTime(before.getValue()).isAfter(startTime))) {
+            return true;
+        }
+
+        Map.Entry<LocalDateTime, Task> after = prioritizedTasks.higherEntry(startTime);
+        while (after != null && ignoredIds.contains(after.getValue().getId())) {
+            after = prioritizedTasks.higherEntry(after.getKey());
         }
-        return false;
+        return after != null && after.getKey().isBefore(endTime);
     }
 
     protected void addToPrioritized(Task task) {
-        if (task.getStartTime().isEmpty() || task.getClass() == Epic.class) {
+        if (task.getClass() == Epic.class) {
+            return;
+        }
+
+        // у обновленной задачи могло поменяться время начала - старая запись больше не нужна
+        LocalDateTime previousStartTime = removeFromPrioritized(task.getId());
+        if (task.getStartTime().isEmpty()) {
             return;
         }
 
-        if (prioritizedTasks.containsKey(task.getStartTime().get()) && task.getStatus().equals(TaskStatus.DONE)) {
-            prioritizedTasks.remove(task.getStartTime().get());
+        if (previousStartTime != null && task.getStatus().equals(TaskStatus.DONE)) {
             return;
         }
 
-        boolean isDateIntersect = hasDateIntersect(task);
+        putPrioritized(task);
+    }
 
-        if (!isDateIntersect) {
+    // задача с временем начала попадает в список, только если не пересекается с уже добавленными
+    private void putPrioritized(Task task) {
+        if (!hasDateIntersect(task, Set.of(task.getId()))) {
             prioritizedTasks.put(task.getStartTime().get(), task);
+            prioritizedStartTimes.put(task.getId(), task.getStartTime().get());
+        }
+    }
+
+    protected LocalDateTime removeFromPrioritized(Integer id) {
+        LocalDateTime startTime = prioritizedStartTimes.remove(id);
+        if (startTime != null) {
+            prioritizedTasks.remove(startTime);
         }
+        return startTime;
+    }
+
+    // задача без длительности занимает только момент начала
+    private static LocalDateTime getEndTime(Task task) {
+        return task.getEndTime().orElseGet(() -> task.getStartTime().orElseThrow());
     }
 
     protected Boolean validateTask(Task task) {
         if (task.getClass() == Subtask.class) {
-            boolean hasEpic = taskMap.values().stream()
-                    .filter(epic -> epic.getClass() == Epic.class)
-                    .anyMatch(epic -> Objects.equals(epic.getId(), ((Subtask) task).getEpicId()));
-            if (!hasEpic) {
+            Integer epicId = ((Subtask) task).getEpicId();
+            Task epic = epicId != null ? taskMap.get(epicId) : null;
+            if (epic == null || epic.getClass() != Epic.class) {
                 System.out.println("WARN: Подзадача должна ссылаться на эпик");
                 return false;
             }
@@ -128,10 +282,16 @@ public class InMemoryTaskManager implements TaskManager {
 
     protected void updateTask(Task task, Boolean isValid) {
         if (isValid) {
-            taskMap.put(task.getId(), task);
-            calculateEpicStatus(task);
-            calculateEpicDates(task);
+            Task previous = taskMap.put(task.getId(), task);
+            indexType(task, previous);
+            indexSubtask(task);
+            if (task.getClass() == Epic.class && previous != task) {
+                rebuildEpic((Epic) task);
+            }
+            calculateEpic(task);
             addToPrioritized(task);
+            indexQuery(task);
+            touch(TaskEvent.Type.UPDATED, task);
             System.out.println("INFO: Обновлена задача с идентификатором " + task.getId());
         }
     }
@@ -139,16 +299,124 @@ public class InMemoryTaskManager implements TaskManager {
     @Override
     public void updateTask(Task task) {
         if (validateTask(task)) {
-            taskMap.put(task.getId(), task);
-            calculateEpicStatus(task);
-            calculateEpicDates(task);
+            Task previous = taskMap.put(task.getId(), task);
+            indexType(task, previous);
+            indexSubtask(task);
+            if (task.getClass() == Epic.class && previous != task) {
+                rebuildEpic((Epic) task);
+            }
+            calculateEpic(task);
             addToPrioritized(task);
+            indexQuery(task);
+            touch(TaskEvent.Type.UPDATED, task);
             System.out.println("INFO: Обновлена задача с идентификатором " + task.getId());
         } else {
             System.out.println("WARN: Задача не прошла валидацию и не была добавлена");
         }
     }
 
+    // задачи без идентификатора добавляются, с идентификатором - обновляются. Пакет применяется, только если
+    // все задачи прошли проверки; каждый затронутый эпик пересчитывается один раз после применения
+    @Override
+    public BatchResult addTasks(List<? extends Task> tasks) {
+        List<String> invalid = new ArrayList<>();
+        List<String> missing = new ArrayList<>();
+        Set<Integer> batchIds = new HashSet<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (task == null) {
+                invalid.add("Элемент " + i + ": задача не задана");
+                continue;
+            }
+            Integer id = task.getId();
+            if (id != null && !batchIds.add(id)) {
+                invalid.add("Элемент " + i + ": задача " + id + " встречается в пакете повторно");
+            } else if (id != null && !taskMap.containsKey(id)) {
+                missing.add("Элемент " + i + ": задача с идентификатором " + id + " не найдена");
+            }
+            if (!validateTask(task)) {
+                invalid.add("Элемент " + i + ": подзадача должна ссылаться на эпик");
+            }
+        }
+        BatchResult rejected = !invalid.isEmpty() ? BatchResult.rejected(BatchResult.Status.INVALID, invalid)
+                : !missing.isEmpty() ? BatchResult.rejected(BatchResult.Status.NOT_FOUND, missing)
+                : null;
+        if (rejected == null) {
+            List<String> conflicts = findBatchConflicts(tasks, batchIds);
+            rejected = conflicts.isEmpty() ? null : BatchResult.rejected(BatchResult.Status.CONFLICT, conflicts);
+        }
+        if (rejected != null) {
+            System.out.println("WARN: Пакет задач отклонен: " + rejected.errors());
+            return rejected;
+        }
+
+        // прежние интервалы задач пакета освобождаются заранее, чтобы задачи пакета могли занять время друг друга
+        Set<Integer> wasPrioritized = new HashSet<>();
+        for (Integer id : batchIds) {
+            if (removeFromPrioritized(id) != null) {
+                wasPrioritized.add(id);
+            }
+        }
+        Set<Integer> touchedEpicIds = new LinkedHashSet<>();
+        List<Integer> ids = new ArrayList<>(tasks.size());
+        for (Task task : tasks) {
+            Task previous = task.getId() != null ? taskMap.get(task.getId()) : null;
+            if (task.getId() == null) {
+                task.setId(getNewTaskId());
+            }
+            taskMap.put(task.getId(), task);
+            indexType(task, previous);
+            if (moveSubtask(task) instanceof Epic previousEpic) {
+                touchedEpicIds.add(previousEpic.getId());
+            }
+            if (task.getClass() == Subtask.class) {
+                Epic epic = (Epic) taskMap.get(((Subtask) task).getEpicId());
+                epic.putSubtask((Subtask) task);
+                touchedEpicIds.add(epic.getId());
+            } else if (task.getClass() == Epic.class && previous != null && previous != task) {
+                fillEpic((Epic) task);
+                touchedEpicIds.add(task.getId());
+            }
+            // как и при обновлении по одной, завершенная задача со сроками в список по приоритету не возвращается
+            if (!wasPrioritized.contains(task.getId()) || task.getStatus() != TaskStatus.DONE) {
+                addToPrioritized(task);
+            }
+            indexQuery(task);
+            touch(previous == null ? TaskEvent.Type.CREATED : TaskEvent.Type.UPDATED, task);
+            ids.add(task.getId());
+        }
+        recalculateEpics(touchedEpicIds);
+        System.out.println("INFO: Пакетом добавлено/обновлено задач: " + ids.size());
+        return BatchResult.applied(ids);
+    }
+
+    // пересечения проверяются один раз на весь пакет: каждая задача - с задачами вне пакета, а задачи пакета
+    // между собой - соседние по времени начала (если пересекаются любые две, пересекаются и какие-то соседние)
+    private List<String> findBatchConflicts(List<? extends Task> tasks, Set<Integer> batchIds) {
+        List<String> conflicts = new ArrayList<>();
+        List<Integer> scheduled = new ArrayList<>();
+        for (int i = 0; i < tasks.size(); i++) {
+            Task task = tasks.get(i);
+            if (task.getClass() == Epic.class || task.getStartTime().isEmpty()) {
+                continue;
+            }
+            if (hasDateIntersect(task, batchIds)) {
+                conflicts.add("Элемент " + i + ": пересекается по срокам с текущими задачами");
+            }
+            scheduled.add(i);
+        }
+        scheduled.sort(Comparator.comparing(i -> tasks.get(i).getStartTime().orElseThrow()));
+        for (int j = 1; j < scheduled.size(); j++) {
+            Task previous = tasks.get(scheduled.get(j - 1));
+            LocalDateTime startTime = tasks.get(scheduled.get(j)).getStartTime().orElseThrow();
+            if (previous.getStartTime().orElseThrow().equals(startTime) || getEndTime(previous).isAfter(startTime)) {
+                conflicts.add("Элементы " + scheduled.get(j - 1) + " и " + scheduled.get(j)
+                        + " пересекаются по срокам");
+            }
+        }
+        return conflicts;
+    }
+
     @Override
     public void deleteTaskById(Integer id) {
         Task task = getTaskById(id, true);
@@ -156,126 +424,412 @@ public class InMemoryTaskManager implements TaskManager {
             System.out.println("WARN: Задача с идентификатором " + id + " не найдена");
             return;
         }
+        if (removeTask(task) instanceof Epic epic) {
+            recalculateEpic(epic);
+        }
+        // для эпика история сама удаляет и его просмотренные подзадачи
+        historyManager.remove(id);
+        System.out.println("INFO: Задача с идентификатором " + id + " была удалена");
+    }
+
+    // пакет удаляется, только если найдены все задачи; эпик каждой удаленной подзадачи пересчитывается
+    // один раз, история очищается одним проходом
+    @Override
+    public BatchResult deleteTasks(Collection<Integer> ids) {
+        List<String> errors = new ArrayList<>();
+        for (Integer id : ids) {
+            if (id == null || !taskMap.containsKey(id)) {
+                errors.add("Задача с идентификатором " + id + " не найдена");
+            }
+        }
+        if (!errors.isEmpty()) {
+            System.out.println("WARN: Пакет на удаление отклонен: " + errors);
+            return BatchResult.rejected(BatchResult.Status.NOT_FOUND, errors);
+        }
+        removeTasks(ids);
+        System.out.println("INFO: Пакетом удалено задач: " + ids.size());
+        return BatchResult.applied(List.copyOf(new LinkedHashSet<>(ids)));
+    }
+
+    // общий путь пакетного удаления: эпики пересчитываются один раз, история очищается одним проходом
+    private void removeTasks(Collection<Integer> ids) {
+        Set<Integer> touchedEpicIds = new LinkedHashSet<>();
+        for (Integer id : ids) {
+            // подзадачи удаленного эпика уже удалены вместе с ним
+            Task task = taskMap.get(id);
+            if (task != null && removeTask(task) instanceof Epic epic) {
+                touchedEpicIds.add(epic.getId());
+            }
+        }
+        recalculateEpics(touchedEpicIds);
+        historyManager.removeAll(ids);
+    }
+
+    // убирает задачу (эпик - вместе с подзадачами) из хранилища и индексов; для подзадачи возвращает
+    // ее эпик, который нужно пересчитать
+    private Epic removeTask(Task task) {
+        Integer id = task.getId();
+        Epic epic = null;
         if (task.getClass() == Epic.class) {
             System.out.println("INFO: Удаление подзадач эпика с идентификатором " + id);
-            getSubtasks(id).forEach(subtask -> taskMap.remove(subtask.getId()));
-            taskMap.remove(id);
+            Set<Integer> subtaskIds = epicSubtasks.remove(id);
+            if (subtaskIds != null) {
+                subtaskIds.forEach(subtaskId -> {
+                    Task subtask = taskMap.remove(subtaskId);
+                    unindexType(subtask);
+                    subtaskEpics.remove(subtaskId);
+                    removeFromPrioritized(subtaskId);
+                    unindexQuery(subtaskId);
+                    taskVersions.remove(subtaskId);
+                    publish(TaskEvent.Type.DELETED, subtask, touchCollection(Subtask.class));
+                });
+            }
+            unindexType(taskMap.remove(id));
+            subtaskListVersions.remove(id);
 
         } else {
-            taskMap.remove(id);
-            calculateEpicStatus(task);
-            calculateEpicStatus(task);
+            unindexType(taskMap.remove(id));
+            if (task.getClass() == Subtask.class) {
+                unindexSubtask(id);
+                epic = (Epic) taskMap.get(((Subtask) task).getEpicId());
+                epic.removeSubtask(id);
+            }
         }
-        if (task.getStartTime().isPresent()) {
-            prioritizedTasks.remove(task.getStartTime().get());
+        removeFromPrioritized(id);
+        unindexQuery(id);
+        taskVersions.remove(id);
+        ResourceVersion version = touchCollection(task.getClass());
+        if (epic != null) {
+            subtaskListVersions.merge(epic.getId(), version, ResourceVersion::latest);
         }
-        System.out.println("INFO: Задача с идентификатором " + id + " была удалена");
+        publish(TaskEvent.Type.DELETED, task, version);
+        return epic;
     }
 
-    private void calculateEpicStatus(Task task) {
+    private void indexSubtask(Task task) {
+        if (moveSubtask(task) instanceof Epic previousEpic) {
+            recalculateEpic(previousEpic);
+        }
+    }
+
+    // индексирует подзадачу под ее эпиком. Если подзадачу перенесли в другой эпик, убирает ее из старого
+    // и возвращает его - старый эпик нужно пересчитать без нее
+    private Epic moveSubtask(Task task) {
         if (task.getClass() != Subtask.class) {
-            return;
+            return null;
+        }
+        Integer epicId = ((Subtask) task).getEpicId();
+        Integer previousEpicId = subtaskEpics.put(task.getId(), epicId);
+        Epic movedFrom = null;
+        if (previousEpicId != null && !previousEpicId.equals(epicId)) {
+            epicSubtasks.get(previousEpicId).remove(task.getId());
+            subtaskListVersions.merge(previousEpicId, nextVersion(), ResourceVersion::latest);
+            if (taskMap.get(previousEpicId) instanceof Epic previousEpic) {
+                previousEpic.removeSubtask(task.getId());
+                movedFrom = previousEpic;
+            }
         }
+        epicSubtasks.computeIfAbsent(epicId, key -> new LinkedHashSet<>()).add(task.getId());
+        return movedFrom;
+    }
 
-        Epic epic = (Epic) taskMap.get(((Subtask) task).getEpicId());
+    private void indexType(Task task, Task previous) {
+        if (previous != null && previous.getClass() != task.getClass()) {
+            unindexType(previous);
+            touchCollection(previous.getClass());
+        }
+        NavigableMap<Integer, Task> tasks = tasksByType.get(task.getClass());
+        if (tasks != null) {
+            tasks.put(task.getId(), task);
+        }
+    }
+
+    private void unindexType(Task task) {
+        NavigableMap<Integer, Task> tasks = task != null ? tasksByType.get(task.getClass()) : null;
+        if (tasks != null) {
+            tasks.remove(task.getId());
+        }
+    }
 
-        boolean allSubtasksIsDone = getSubtasks(epic.getId()).stream()
-                .allMatch(subtask -> subtask.getStatus() == TaskStatus.DONE);
+    // переносит задачу в индексах статуса и времени начала, если они изменились с прошлой индексации
+    protected void indexQuery(Task task) {
+        putQueryIndex(task);
+    }
 
-        boolean allSubtasksIsNew = getSubtasks(epic.getId()).stream()
-                .allMatch(subtask -> subtask.getStatus() == TaskStatus.NEW);
+    private void putQueryIndex(Task task) {
+        Integer id = task.getId();
+        TaskStatus status = task.getStatus();
+        TaskStatus previousStatus = status != null ? indexedStatuses.put(id, status) : indexedStatuses.remove(id);
+        if (previousStatus != null && previousStatus != status) {
+            tasksByStatus.get(previousStatus).remove(id);
+        }
+        if (status != null) {
+            tasksByStatus.get(status).put(id, task);
+        }
 
-        if (allSubtasksIsNew) {
-            epic.setStatusForce(TaskStatus.NEW);
-            System.out.println("INFO: Статус эпика с идентификатором " + epic.getId() + " изменен на NEW");
-        } else if (allSubtasksIsDone) {
-            epic.setStatusForce(TaskStatus.DONE);
-            System.out.println("INFO: Статус эпика с идентификатором " + epic.getId() + " изменен на DONE");
-        } else {
-            epic.setStatusForce(TaskStatus.IN_PROGRESS);
-            System.out.println("INFO: Статус эпика с идентификатором " + epic.getId() + " изменен на IN_PROGRESS");
+        LocalDateTime startTime = task.getStartTime().orElse(null);
+        LocalDateTime previousStartTime = startTime != null ? indexedStartTimes.put(id, startTime)
+                : indexedStartTimes.remove(id);
+        if (previousStartTime != null && !previousStartTime.equals(startTime)) {
+            removeFromStartTimeIndex(previousStartTime, id);
+        }
+        if (startTime != null) {
+            tasksByStartTime.computeIfAbsent(startTime, key -> storage.createSortedMap()).put(id, task);
+        }
+    }
+
+    protected void unindexQuery(Integer id) {
+        TaskStatus status = indexedStatuses.remove(id);
+        if (status != null) {
+            tasksByStatus.get(status).remove(id);
+        }
+        LocalDateTime startTime = indexedStartTimes.remove(id);
+        if (startTime != null) {
+            removeFromStartTimeIndex(startTime, id);
+        }
+    }
+
+    private void removeFromStartTimeIndex(LocalDateTime startTime, Integer id) {
+        NavigableMap<Integer, Task> tasks = tasksByStartTime.get(startTime);
+        if (tasks != null) {
+            tasks.remove(id);
+            if (tasks.isEmpty()) {
+                tasksByStartTime.remove(startTime);
+            }
+        }
+    }
+
+    protected void unindexSubtask(Integer id) {
+        Integer epicId = subtaskEpics.remove(id);
+        if (epicId != null) {
+            epicSubtasks.get(epicId).remove(id);
         }
     }
 
-    private void calculateEpicDates(Task task) {
+    private void calculateEpic(Task task) {
         if (task.getClass() != Subtask.class) {
             return;
         }
         Epic epic = (Epic) taskMap.get(((Subtask) task).getEpicId());
+        epic.putSubtask((Subtask) task);
+        recalculateEpic(epic);
+    }
+
+    // новый объект эпика (например, пришедший через API) не знает о своих подзадачах
+    private void rebuildEpic(Epic epic) {
+        fillEpic(epic);
+        epic.recalculate();
+    }
+
+    private void fillEpic(Epic epic) {
+        epic.clearSubtasks();
+        getSubtasks(epic.getId()).forEach(epic::putSubtask);
+    }
+
+    private void recalculateEpics(Collection<Integer> epicIds) {
+        for (Integer epicId : epicIds) {
+            if (taskMap.get(epicId) instanceof Epic epic) {
+                recalculateEpic(epic);
+            }
+        }
+    }
+
+    // статус и время начала эпика вычисляются по подзадачам - после пересчета эпик переиндексируется
+    private void recalculateEpic(Epic epic) {
+        epic.recalculate();
+        indexQuery(epic);
+        touch(TaskEvent.Type.UPDATED, epic);
+        System.out.println("INFO: Статус эпика с идентификатором " + epic.getId() + " изменен на "
+                + epic.getStatus());
+    }
+
+    // новая версия задачи и списков, в которые она входит, и событие подписчикам;
+    // вызывается, когда задача уже в итоговом состоянии
+    private void touch(TaskEvent.Type type, Task task) {
+        ResourceVersion version = nextVersion();
+        taskVersions.merge(task.getId(), version, ResourceVersion::latest);
+        typeVersions.merge(task.getClass(), version, ResourceVersion::latest);
+        if (task.getClass() == Subtask.class) {
+            subtaskListVersions.merge(((Subtask) task).getEpicId(), version, ResourceVersion::latest);
+        }
+        if (task.getClass() != Epic.class) {
+            prioritizedVersion.accumulateAndGet(version, ResourceVersion::latest);
+        }
+        publish(type, task, version);
+    }
+
+    private ResourceVersion touchCollection(Class<?> type) {
+        ResourceVersion version = nextVersion();
+        typeVersions.merge(type, version, ResourceVersion::latest);
+        if (type != Epic.class) {
+            prioritizedVersion.accumulateAndGet(version, ResourceVersion::latest);
+        }
+        return version;
+    }
+
+    // ошибка подписчика не должна прерывать изменение
+    private void publish(TaskEvent.Type type, Task task, ResourceVersion version) {
+        if (listeners.isEmpty() || task == null) {
+            return;
+        }
+        TaskEvent event = new TaskEvent(type, version.version(), task.snapshot());
+        for (TaskListener listener : listeners) {
+            try {
+                listener.onTaskEvent(event);
+            } catch (RuntimeException e) {
+                System.out.println("ERROR: Подписчик не обработал событие задачи " + task.getId() + ": "
+                        + e.getMessage());
+            }
+        }
+    }
+
+    @Override
+    public void addTaskListener(TaskListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeTaskListener(TaskListener listener) {
+        listeners.remove(listener);
+    }
+
+    private ResourceVersion nextVersion() {
+        return new ResourceVersion(initialVersion.epoch(), versionCounter.incrementAndGet(), System.currentTimeMillis());
+    }
+
+    @Override
+    public ResourceVersion getTaskVersion(Integer id) {
+        return getTaskVersion(id, null);
+    }
+
+    // задача, загруженная из файла и с тех пор не менявшаяся, имеет начальную версию менеджера
+    @Override
+    public ResourceVersion getTaskVersion(Integer id, Class<? extends Task> type) {
+        Task task = id != null ? taskMap.get(id) : null;
+        if (task == null || (type != null && task.getClass() != type)) {
+            return null;
+        }
+        return taskVersions.getOrDefault(id, initialVersion);
+    }
+
+    @Override
+    public ResourceVersion getCollectionVersion(Class<?> cl) {
+        return typeVersions.getOrDefault(cl, initialVersion);
+    }
 
-        epic.setStartTime(
-                getSubtasks(epic.getId()).stream()
-                        .map(Task::getStartTime)
-                        .filter(Optional::isPresent)
-                        .map(Optional::get)
-                        .min(LocalDateTime::compareTo)
-                        .orElse(null)
-        );
-
-        epic.setDuration(
-                getSubtasks(epic.getId()).stream()
-                        .map(subtask -> subtask.getDuration().toMinutes())
-                        .reduce(0L, Long::sum)
-        );
-
-        epic.setEndTime(
-                getSubtasks(epic.getId()).stream()
-                        .map(Task::getEndTime)
-                        .filter(Optional::isPresent)
-                        .map(Optional::get)
-                        .max(LocalDateTime::compareTo)
-                        .orElse(null)
-        );
+    @Override
+    public ResourceVersion getSubtasksVersion(int epicId) {
+        if (!(taskMap.get(epicId) instanceof Epic)) {
+            return null;
+        }
+        return subtaskListVersions.getOrDefault(epicId, initialVersion);
+    }
+
+    @Override
+    public ResourceVersion getPrioritizedVersion() {
+        return prioritizedVersion.get();
     }
 
     @Override
     public List<Task> getTasksByType(Class<?> cl) {
-        return taskMap.values().stream()
-                .filter(task -> task.getClass() == cl)
-                .toList();
+        NavigableMap<Integer, Task> tasks = tasksByType.get(cl);
+        return tasks == null ? List.of() : List.copyOf(tasks.values());
+    }
+
+    // страница задач типа после идентификатора cursor; по индексу типа, без обхода всего хранилища
+    @Override
+    public TaskPage getTasksPage(Class<?> cl, Integer cursor, int limit) {
+        NavigableMap<Integer, Task> tasks = tasksByType.get(cl);
+        if (tasks == null || limit <= 0) {
+            return new TaskPage(List.of(), null);
+        }
+        Iterator<Task> iterator = (cursor == null ? tasks : tasks.tailMap(cursor, false)).values().iterator();
+        List<Task> page = new ArrayList<>(Math.min(limit, 1024));
+        while (page.size() < limit && iterator.hasNext()) {
+            page.add(iterator.next());
+        }
+        Integer nextCursor = iterator.hasNext() ? page.getLast().getId() : null;
+        return new TaskPage(page, nextCursor);
     }
 
     @Override
+    // как и раньше, удаляются задачи класса cl и его наследников (Task.class - все задачи)
     public void deleteTasksByType(Class<?> cl) {
-        List<Task> tasksToDelete = taskMap.values().stream()
-                .filter(cl::isInstance).toList();
-        tasksToDelete.forEach(task -> deleteTaskById(task.getId()));
+        List<Integer> idsToDelete = new ArrayList<>();
+        tasksByType.forEach((type, tasks) -> {
+            if (cl.isAssignableFrom(type)) {
+                idsToDelete.addAll(tasks.keySet());
+            }
+        });
+        removeTasks(idsToDelete);
+        System.out.println("INFO: Удалено задач типа " + cl.getSimpleName() + ": " + idsToDelete.size());
+    }
+
+    // выборка начинается с самого узкого индекса из заданных условий (эпик, время начала, статус, тип),
+    // остальные условия проверяются по отобранным задачам. Выборка по времени упорядочена по времени начала,
+    // по эпику - в порядке добавления подзадач, остальные - по идентификатору
+    @Override
+    public List<Task> findTasks(TaskQuery query) {
+        Collection<? extends Task> candidates;
+        if (query.getEpicId() != null) {
+            candidates = getSubtasks(query.getEpicId());
+        } else if (query.hasTimeRange()) {
+            candidates = getStartTimeWindow(query.getFrom(), query.getTo()).values().stream()
+                    .flatMap(tasks -> tasks.values().stream())
+                    .toList();
+        } else if (query.getStatus() != null) {
+            candidates = tasksByStatus.get(query.getStatus()).values();
+        } else if (query.getType() != null) {
+            candidates = tasksByType.getOrDefault(query.getType(), Collections.emptyNavigableMap()).values();
+        } else {
+            candidates = getAllTasks();
+        }
+        return candidates.stream()
+                .filter(query::matches)
+                .map(Task.class::cast)
+                .toList();
+    }
+
+    private NavigableMap<LocalDateTime, NavigableMap<Integer, Task>> getStartTimeWindow(LocalDateTime from,
+                                                                                       LocalDateTime to) {
+        if (from != null && to != null) {
+            return from.isBefore(to) ? tasksByStartTime.subMap(from, true, to, false)
+                    : Collections.emptyNavigableMap();
+        }
+        return from != null ? tasksByStartTime.tailMap(from, true) : tasksByStartTime.headMap(to, false);
     }
 
     @Override
     public List<Subtask> getSubtasks(int epicId) {
-        return taskMap.values().stream()
-                .filter(Subtask.class::isInstance)
+        Set<Integer> subtaskIds = epicSubtasks.get(epicId);
+        if (subtaskIds == null) {
+            return List.of();
+        }
+        return subtaskIds.stream()
+                .map(taskMap::get)
                 .map(Subtask.class::cast)
-                .filter(subtask -> subtask.getEpicId() == epicId)
                 .toList();
     }
 
 
     public static Integer getNewTaskId() {
-        return ++counter;
+        return counter.incrementAndGet();
     }
 
     public static Integer getLastTaskId() {
-        return counter;
+        return counter.get();
     }
 
     @Override
     public void printAllTasks() {
         System.out.println("Задачи:");
-        taskMap.values().stream()
-                .filter(task -> task.getClass() == Task.class)
-                .forEach(System.out::println);
+        tasksByType.get(Task.class).values().forEach(System.out::println);
 
         System.out.println("Эпики:");
-        taskMap.values().stream()
-                .filter(Epic.class::isInstance)
-                .forEach(System.out::println);
+        tasksByType.get(Epic.class).values().forEach(System.out::println);
 
         System.out.println("Подзадачи:");
-        taskMap.values().stream()
-                .filter(Subtask.class::isInstance)
-                .forEach(System.out::println);
+        tasksByType.get(Subtask.class).values().forEach(System.out::println);
     }
 
     @Override
@@ -290,4 +844,20 @@ public class InMemoryTaskManager implements TaskManager {
     public List<Task> getPrioritizedTasks() {
         return new ArrayList<>(prioritizedTasks.values());
     }
+
+    // задачи, занимающие хотя бы часть интервала [from, to)
+    @Override
+    public List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to) {
+        List<Task> tasks = new ArrayList<>();
+        if (!from.isBefore(to)) {
+            return tasks;
+        }
+        // раньше from может начинаться не больше одной задачи, еще не закончившейся к from
+        Map.Entry<LocalDateTime, Task> before = prioritizedTasks.lowerEntry(from);
+        if (before != null && getEndTime(before.getValue()).isAfter(from)) {
+            tasks.add(before.getValue());
+        }
+        tasks.addAll(prioritizedTasks.subMap(from, true, to, false).values());
+        return tasks;
+    }
 }
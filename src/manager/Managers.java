@@ -32,7 +32,11 @@ public final class Managers {
 
     public static HistoryManager getDefaultHistory() {
         if (historyManager == null) {
-            historyManager = new InMemoryHistoryManager();
+            // -Dkanban.history.partitioned=true - своя история у каждого клиента HttpTaskServer
+            HistoryConfig config = HistoryConfig.fromSystemProperties();
+            historyManager = config.isPartitioned()
+                    ? new PartitionedHistoryManager(config)
+                    : new InMemoryHistoryManager(config);
         }
         return historyManager;
     }
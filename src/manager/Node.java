@@ -4,6 +4,8 @@ public class Node<E> {
     Node<E> next;
     E data;
     Node<E> previous;
+    // время последнего просмотра, мс
+    long viewedAt;
 
     public Node(Node<E> previous, E data, Node<E> next) {
         this.data = data;
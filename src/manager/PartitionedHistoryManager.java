@@ -0,0 +1,115 @@
+package manager;
+
+import task.Task;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// история просмотров, разделенная по ключу HistorySession: у каждого клиента свой ограниченный
+// InMemoryHistoryManager со своей блокировкой, общей блокировки на всю историю нет.
+// Разделы, к которым не обращались дольше partitionIdleMillis, удаляются при очередном обращении
+public class PartitionedHistoryManager implements HistoryManager {
+    private final ConcurrentHashMap<String, Partition> partitions = new ConcurrentHashMap<>();
+    private final HistoryConfig config;
+    private final LongSupplier clock;
+    private final AtomicLong lastSweep = new AtomicLong();
+    private final AtomicLong evictedPartitions = new AtomicLong();
+
+    public PartitionedHistoryManager() {
+        this(new HistoryConfig());
+    }
+
+    public PartitionedHistoryManager(HistoryConfig config) {
+        this(config, System::currentTimeMillis);
+    }
+
+    PartitionedHistoryManager(HistoryConfig config, LongSupplier clock) {
+        this.config = config;
+        this.clock = clock;
+        lastSweep.set(clock.getAsLong());
+    }
+
+    @Override
+    public void add(Task task) {
+        long now = clock.getAsLong();
+        // время обращения обновляется под блокировкой ключа, иначе обход мог бы удалить раздел
+        // между его созданием (или проверкой простоя) и обращением
+        Partition partition = partitions.compute(HistorySession.get(), (key, existing) -> {
+            if (existing == null) {
+                return new Partition(new InMemoryHistoryManager(config, clock), now);
+            }
+            existing.lastAccess = now;
+            return existing;
+        });
+        partition.history.add(task);
+        sweepIdle(now);
+    }
+
+    // раздел без просмотров не создается
+    @Override
+    public List<Task> getHistory() {
+        long now = clock.getAsLong();
+        Partition partition = partitions.computeIfPresent(HistorySession.get(), (key, existing) -> {
+            existing.lastAccess = now;
+            return existing;
+        });
+        sweepIdle(now);
+        if (partition == null) {
+            return List.of();
+        }
+        return partition.history.getHistory();
+    }
+
+    @Override
+    public void clearHistory() {
+        partitions.clear();
+    }
+
+    // удаленная задача пропадает из истории всех клиентов
+    @Override
+    public void remove(Integer id) {
+        partitions.values().forEach(partition -> partition.history.remove(id));
+    }
+
+    @Override
+    public void removeAll(Collection<Integer> ids) {
+        partitions.values().forEach(partition -> partition.history.removeAll(ids));
+    }
+
+    public int getPartitionCount() {
+        return partitions.size();
+    }
+
+    public long getEvictedPartitionCount() {
+        return evictedPartitions.get();
+    }
+
+    // обход разделов не чаще, чем раз в половину срока простоя; обходит один поток
+    private void sweepIdle(long now) {
+        long idleMillis = config.getPartitionIdleMillis();
+        long previous = lastSweep.get();
+        if (idleMillis <= 0 || now - previous < idleMillis / 2 || !lastSweep.compareAndSet(previous, now)) {
+            return;
+        }
+        // проверка простоя и удаление атомарны относительно обращений к тому же разделу
+        partitions.keySet().forEach(key -> partitions.computeIfPresent(key, (k, partition) -> {
+            if (now - partition.lastAccess < idleMillis) {
+                return partition;
+            }
+            evictedPartitions.incrementAndGet();
+            return null;
+        }));
+    }
+
+    private static class Partition {
+        private final InMemoryHistoryManager history;
+        private volatile long lastAccess;
+
+        private Partition(InMemoryHistoryManager history, long now) {
+            this.history = history;
+            this.lastAccess = now;
+        }
+    }
+}
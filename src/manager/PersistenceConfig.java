@@ -0,0 +1,85 @@
+package manager;
+
+public class PersistenceConfig {
+    // false - после каждого изменения файл задач перезаписывается целиком
+    private boolean journalEnabled = false;
+    // формат файла задач; при загрузке формат определяется по содержимому файла
+    private SnapshotFormat snapshotFormat = SnapshotFormat.CSV;
+    private SyncPolicy syncPolicy = SyncPolicy.BATCHED;
+    private long syncIntervalMillis = 50;
+    // 0 - журнал сворачивается в снимок только при закрытии менеджера
+    private long compactionIntervalMillis = 60_000;
+    // 0 - каждое изменение записывается сразу, иначе изменения внутри окна записываются одним потоком вместе
+    private long groupCommitWindowMillis = 0;
+    // true - изменение возвращает управление только после записи на диск
+    private boolean waitForDurability = true;
+    // число потоков разбора файла при загрузке, 1 - последовательный разбор
+    private int loadThreads = Runtime.getRuntime().availableProcessors();
+
+    public PersistenceConfig() {
+    }
+
+    public boolean isJournalEnabled() {
+        return journalEnabled;
+    }
+
+    public void setJournalEnabled(boolean journalEnabled) {
+        this.journalEnabled = journalEnabled;
+    }
+
+    public SnapshotFormat getSnapshotFormat() {
+        return snapshotFormat;
+    }
+
+    public void setSnapshotFormat(SnapshotFormat snapshotFormat) {
+        this.snapshotFormat = snapshotFormat;
+    }
+
+    public SyncPolicy getSyncPolicy() {
+        return syncPolicy;
+    }
+
+    public void setSyncPolicy(SyncPolicy syncPolicy) {
+        this.syncPolicy = syncPolicy;
+    }
+
+    public long getSyncIntervalMillis() {
+        return syncIntervalMillis;
+    }
+
+    public void setSyncIntervalMillis(long syncIntervalMillis) {
+        this.syncIntervalMillis = syncIntervalMillis;
+    }
+
+    public long getCompactionIntervalMillis() {
+        return compactionIntervalMillis;
+    }
+
+    public void setCompactionIntervalMillis(long compactionIntervalMillis) {
+        this.compactionIntervalMillis = compactionIntervalMillis;
+    }
+
+    public long getGroupCommitWindowMillis() {
+        return groupCommitWindowMillis;
+    }
+
+    public void setGroupCommitWindowMillis(long groupCommitWindowMillis) {
+        this.groupCommitWindowMillis = groupCommitWindowMillis;
+    }
+
+    public boolean isWaitForDurability() {
+        return waitForDurability;
+    }
+
+    public void setWaitForDurability(boolean waitForDurability) {
+        this.waitForDurability = waitForDurability;
+    }
+
+    public int getLoadThreads() {
+        return loadThreads;
+    }
+
+    public void setLoadThreads(int loadThreads) {
+        this.loadThreads = loadThreads;
+    }
+}
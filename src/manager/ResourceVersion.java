@@ -0,0 +1,19 @@
+package manager;
+
+// версия ресурса для условных запросов: номер последнего изменения из общего счетчика менеджера и его время.
+// epoch - время создания менеджера: после перезапуска счетчик начинается заново, а метки не совпадают со старыми
+public record ResourceVersion(long epoch, long version, long modifiedMillis) {
+
+    public String tag() {
+        return Long.toString(epoch, 36) + "." + version;
+    }
+
+    static ResourceVersion initial() {
+        long now = System.currentTimeMillis();
+        return new ResourceVersion(now, 0, now);
+    }
+
+    static ResourceVersion latest(ResourceVersion first, ResourceVersion second) {
+        return first.version >= second.version ? first : second;
+    }
+}
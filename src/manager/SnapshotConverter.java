@@ -0,0 +1,45 @@
+package manager;
+
+import task.Task;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+// перевод файла задач между форматами CSV и BINARY.
+// Запуск: java manager.SnapshotConverter <CSV|BINARY - формат результата> <исходный файл> <новый файл>
+public class SnapshotConverter {
+
+    private SnapshotConverter() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 3) {
+            System.out.println("ERROR: Ожидаются аргументы: <CSV|BINARY> <исходный файл> <новый файл>");
+            return;
+        }
+        convert(Path.of(args[1]), Path.of(args[2]), SnapshotFormat.valueOf(args[0]));
+    }
+
+    // исходный формат определяется по содержимому файла
+    public static void convert(Path source, Path target, SnapshotFormat targetFormat) throws IOException {
+        Map<Integer, Task> tasks = BinarySnapshot.isBinary(source)
+                ? BinarySnapshot.read(source)
+                : CsvTaskReader.readFile(source, Runtime.getRuntime().availableProcessors());
+        if (targetFormat == SnapshotFormat.BINARY) {
+            BinarySnapshot.write(tasks.values(), target);
+        } else {
+            try (BufferedWriter writer = Files.newBufferedWriter(target)) {
+                writer.write(FileBackedTaskManager.csvHeader);
+                writer.newLine();
+                for (Task task : tasks.values()) {
+                    writer.write(task.toCsvString());
+                    writer.newLine();
+                }
+            }
+        }
+        System.out.printf("INFO: Файл %s (%d байт) преобразован в %s: %s (%d байт), задач: %d\n", source,
+                Files.size(source), targetFormat, target, Files.size(target), tasks.size());
+    }
+}
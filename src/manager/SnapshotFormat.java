@@ -0,0 +1,8 @@
+package manager;
+
+public enum SnapshotFormat {
+    // текстовый файл, совместимый с прежними версиями
+    CSV,
+    // компактный двоичный формат, см. BinarySnapshot
+    BINARY
+}
@@ -0,0 +1,41 @@
+package manager;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+// реализации хранилищ менеджера. Передаются в конструктор, а не переопределяются наследником:
+// поля заполняются до того, как наследник успевает инициализироваться
+enum StorageType {
+    // однопоточный доступ
+    PLAIN {
+        @Override
+        <K, V> Map<K, V> createMap() {
+            return new HashMap<>();
+        }
+
+        @Override
+        <K, V> NavigableMap<K, V> createSortedMap() {
+            return new TreeMap<>();
+        }
+    },
+    // ConcurrentTaskManager
+    CONCURRENT {
+        @Override
+        <K, V> Map<K, V> createMap() {
+            return new ConcurrentHashMap<>();
+        }
+
+        @Override
+        <K, V> NavigableMap<K, V> createSortedMap() {
+            return new ConcurrentSkipListMap<>();
+        }
+    };
+
+    abstract <K, V> Map<K, V> createMap();
+
+    abstract <K, V> NavigableMap<K, V> createSortedMap();
+}
@@ -0,0 +1,10 @@
+package manager;
+
+public enum SyncPolicy {
+    // fsync после каждой записи в журнал
+    ALWAYS,
+    // fsync фоновым потоком раз в PersistenceConfig.syncIntervalMillis
+    BATCHED,
+    // сброс на диск остается на усмотрение ОС
+    OS
+}
@@ -0,0 +1,15 @@
+package manager;
+
+import task.Task;
+
+// изменение задачи для подписчиков менеджера. task - замороженный снимок состояния после изменения
+// (для удаления - последнего состояния), его можно отдавать другим потокам. Для эпика снимок уже содержит
+// пересчитанные статус и сроки; version - номер изменения из счетчика версий менеджера
+public record TaskEvent(Type type, long version, Task task) {
+
+    public enum Type {
+        CREATED,
+        UPDATED,
+        DELETED
+    }
+}
@@ -0,0 +1,161 @@
+package manager;
+
+import exception.ManagerSaveException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// журнал изменений, который дописывается рядом с файлом задач (<файл>.journal).
+// Одна строка - одна запись: "+<строка CSV>" - задача добавлена/изменена, "-<id>" - удалена, "!" - очистка
+class TaskJournal {
+    static final char UPSERT = '+';
+    static final char DELETE = '-';
+    static final char CLEAR = '!';
+
+    private final Path path;
+    private final SyncPolicy syncPolicy;
+    private FileChannel channel;
+    private boolean dirty;
+    // число fsync записей журнала
+    private long syncCount;
+
+    TaskJournal(Path snapshotPath, SyncPolicy syncPolicy, long syncIntervalMillis,
+                ScheduledExecutorService scheduler) {
+        this.path = getJournalPath(snapshotPath);
+        this.syncPolicy = syncPolicy;
+        open();
+        if (syncPolicy == SyncPolicy.BATCHED) {
+            // ошибка одного сброса не должна останавливать периодический сброс
+            scheduler.scheduleWithFixedDelay(() -> {
+                try {
+                    sync();
+                } catch (ManagerSaveException e) {
+                    System.out.println("ERROR: " + e.getMessage());
+                }
+            }, syncIntervalMillis, syncIntervalMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    static Path getJournalPath(Path snapshotPath) {
+        return snapshotPath.resolveSibling(snapshotPath.getFileName() + ".journal");
+    }
+
+    // строки журнала; последняя строка без перевода строки могла быть оборвана сбоем - она пропускается
+    // и отрезается от файла, иначе следующая запись допишется к ней и журнал не прочитается
+    static List<String> readRecords(Path snapshotPath) {
+        Path journalPath = getJournalPath(snapshotPath);
+        List<String> records = new ArrayList<>();
+        if (!Files.exists(journalPath)) {
+            return records;
+        }
+        try {
+            String content = Files.readString(journalPath, StandardCharsets.UTF_8);
+            int lineStart = 0;
+            boolean inQuotes = false;
+            // перевод строки внутри поля в кавычках не завершает запись
+            for (int i = 0; i < content.length(); i++) {
+                char c = content.charAt(i);
+                if (c == '"') {
+                    inQuotes = !inQuotes;
+                } else if (c == '\n' && !inQuotes) {
+                    if (i > lineStart) {
+                        records.add(content.substring(lineStart, i));
+                    }
+                    lineStart = i + 1;
+                }
+            }
+            if (lineStart < content.length()) {
+                System.out.println("WARN: Последняя запись журнала не завершена и будет удалена");
+                truncateTo(journalPath, content.substring(0, lineStart).getBytes(StandardCharsets.UTF_8).length);
+            }
+            return records;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время чтения журнала " + journalPath);
+        }
+    }
+
+    private static void truncateTo(Path journalPath, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+            channel.force(true);
+        }
+    }
+
+    synchronized void append(char type, String payload) {
+        byte[] bytes = (type + payload + "\n").getBytes(StandardCharsets.UTF_8);
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (syncPolicy == SyncPolicy.ALWAYS) {
+                channel.force(false);
+                syncCount++;
+            } else {
+                dirty = true;
+            }
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время записи в журнал " + path);
+        }
+    }
+
+    // при ошибке записи остаются "грязными" и будут сброшены повторно; ожидающие подтверждения
+    // получают исключение через групповую запись
+    synchronized void sync() {
+        if (!dirty || channel == null) {
+            return;
+        }
+        try {
+            channel.force(false);
+            dirty = false;
+            syncCount++;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось сбросить журнал на диск " + path + ": " + e.getMessage());
+        }
+    }
+
+    synchronized long getSyncCount() {
+        return syncCount;
+    }
+
+    // вызывается после того, как все записи журнала попали в новый снимок
+    synchronized void truncate() {
+        try {
+            channel.truncate(0);
+            channel.force(true);
+            dirty = false;
+        } catch (IOException e) {
+            throw new ManagerSaveException("Ошибка во время очистки журнала " + path);
+        }
+    }
+
+    synchronized void close() {
+        try {
+            sync();
+        } finally {
+            try {
+                channel.close();
+                channel = null;
+            } catch (IOException e) {
+                throw new ManagerSaveException("Ошибка во время закрытия журнала " + path);
+            }
+        }
+    }
+
+    private void open() {
+        try {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new ManagerSaveException("Не удалось открыть журнал " + path);
+        }
+    }
+}
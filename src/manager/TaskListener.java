@@ -0,0 +1,7 @@
+package manager;
+
+// вызывается синхронно внутри изменения менеджера (под его блокировками), поэтому не должен блокироваться
+@FunctionalInterface
+public interface TaskListener {
+    void onTaskEvent(TaskEvent event);
+}
@@ -0,0 +1,31 @@
+package manager;
+
+import task.Task;
+
+// результат поиска задачи по идентификатору с проверкой типа: задача есть только при FOUND
+public record TaskLookup(Status status, Task task) {
+    private static final TaskLookup MISSING = new TaskLookup(Status.MISSING, null);
+    private static final TaskLookup WRONG_TYPE = new TaskLookup(Status.WRONG_TYPE, null);
+
+    public enum Status {
+        FOUND,
+        WRONG_TYPE,
+        MISSING
+    }
+
+    static TaskLookup found(Task task) {
+        return new TaskLookup(Status.FOUND, task);
+    }
+
+    static TaskLookup missing() {
+        return MISSING;
+    }
+
+    static TaskLookup wrongType() {
+        return WRONG_TYPE;
+    }
+
+    public boolean isFound() {
+        return status == Status.FOUND;
+    }
+}
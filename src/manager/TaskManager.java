@@ -2,6 +2,8 @@ package manager;
 
 import task.Subtask;
 import task.Task;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface TaskManager {
@@ -11,21 +13,49 @@ public interface TaskManager {
 
     Task getTaskById(Integer id);
 
+    TaskLookup lookupTask(Integer id, Class<? extends Task> type, boolean markViewed);
+
     void addTask(Task task);
 
     void updateTask(Task task);
 
     void deleteTaskById(Integer id);
 
+    BatchResult addTasks(List<? extends Task> tasks);
+
+    BatchResult deleteTasks(Collection<Integer> ids);
+
     List<Task> getTasksByType(Class<?> cl);
 
+    TaskPage getTasksPage(Class<?> cl, Integer cursor, int limit);
+
     void deleteTasksByType(Class<?> cl);
 
+    List<Task> findTasks(TaskQuery query);
+
     List<Subtask> getSubtasks(int epicId);
 
+    ResourceVersion getTaskVersion(Integer id);
+
+    // null - задачи типа type (null - любого типа) нет
+    ResourceVersion getTaskVersion(Integer id, Class<? extends Task> type);
+
+    ResourceVersion getCollectionVersion(Class<?> cl);
+
+    // null - эпика нет
+    ResourceVersion getSubtasksVersion(int epicId);
+
+    ResourceVersion getPrioritizedVersion();
+
+    void addTaskListener(TaskListener listener);
+
+    void removeTaskListener(TaskListener listener);
+
     void printAllTasks();
 
     List<? extends Task> getHistory();
 
     List<Task> getPrioritizedTasks();
+
+    List<Task> getPrioritizedTasks(LocalDateTime from, LocalDateTime to);
 }
@@ -0,0 +1,8 @@
+package manager;
+
+import task.Task;
+import java.util.List;
+
+// nextCursor - идентификатор для запроса следующей страницы, null - страница последняя
+public record TaskPage(List<Task> tasks, Integer nextCursor) {
+}
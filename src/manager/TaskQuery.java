@@ -0,0 +1,90 @@
+package manager;
+
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import java.time.LocalDateTime;
+
+// условия поиска задач для TaskManager.findTasks; незаданное (null) условие не ограничивает выборку.
+// Время начала проверяется по полуинтервалу [from, to), задачи без времени начала в такую выборку не попадают
+public class TaskQuery {
+    private Class<? extends Task> type;
+    private TaskStatus status;
+    private Integer epicId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private String namePrefix;
+
+    public Class<? extends Task> getType() {
+        return type;
+    }
+
+    public void setType(Class<? extends Task> type) {
+        this.type = type;
+    }
+
+    public TaskStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(TaskStatus status) {
+        this.status = status;
+    }
+
+    public Integer getEpicId() {
+        return epicId;
+    }
+
+    public void setEpicId(Integer epicId) {
+        this.epicId = epicId;
+    }
+
+    public LocalDateTime getFrom() {
+        return from;
+    }
+
+    public void setFrom(LocalDateTime from) {
+        this.from = from;
+    }
+
+    public LocalDateTime getTo() {
+        return to;
+    }
+
+    public void setTo(LocalDateTime to) {
+        this.to = to;
+    }
+
+    public String getNamePrefix() {
+        return namePrefix;
+    }
+
+    public void setNamePrefix(String namePrefix) {
+        this.namePrefix = namePrefix;
+    }
+
+    public boolean hasTimeRange() {
+        return from != null || to != null;
+    }
+
+    public boolean matches(Task task) {
+        if (type != null && task.getClass() != type) {
+            return false;
+        }
+        if (status != null && task.getStatus() != status) {
+            return false;
+        }
+        if (epicId != null && !(task instanceof Subtask subtask && epicId.equals(subtask.getEpicId()))) {
+            return false;
+        }
+        if (namePrefix != null && (task.getName() == null || !task.getName().startsWith(namePrefix))) {
+            return false;
+        }
+        if (hasTimeRange()) {
+            LocalDateTime startTime = task.getStartTime().orElse(null);
+            return startTime != null && (from == null || !startTime.isBefore(from))
+                    && (to == null || startTime.isBefore(to));
+        }
+        return true;
+    }
+}
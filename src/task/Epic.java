@@ -1,13 +1,29 @@
 package task;
 
+import util.Csv;
 import java.time.LocalDateTime;
 import java.util.Optional;
 
 public class Epic extends Task {
 
     private LocalDateTime endTime;
+    // не сериализуется: восстанавливается менеджером по индексу подзадач
+    private transient EpicAggregate aggregate;
+    // у снимка агрегата нет, число подзадач запоминается при его создании
+    private final transient int frozenSubtaskCount;
 
     public Epic() {
+        this.frozenSubtaskCount = 0;
+    }
+
+    // снимок не делит агрегат подзадач с живым эпиком, изменяемая копия получает свой
+    private Epic(Epic source, boolean frozen) {
+        super(source, frozen);
+        this.endTime = source.endTime;
+        this.frozenSubtaskCount = frozen ? source.getSubtaskCount() : 0;
+        if (!frozen && source.aggregate != null) {
+            this.aggregate = new EpicAggregate(source.aggregate);
+        }
     }
 
     @Override
@@ -16,6 +32,7 @@ public class Epic extends Task {
     }
 
     public void setStatusForce(TaskStatus status) {
+        checkNotFrozen();
         super.setStatus(status);
 
     }
@@ -26,9 +43,55 @@ public class Epic extends Task {
     }
 
     public void setEndTime(LocalDateTime endTime) {
+        checkNotFrozen();
         this.endTime = endTime;
     }
 
+    // учесть новое состояние подзадачи; статус и сроки эпика меняются только после recalculate()
+    public void putSubtask(Subtask subtask) {
+        checkNotFrozen();
+        getAggregate().put(subtask);
+    }
+
+    public void removeSubtask(Integer subtaskId) {
+        checkNotFrozen();
+        getAggregate().remove(subtaskId);
+    }
+
+    public void clearSubtasks() {
+        checkNotFrozen();
+        getAggregate().clear();
+    }
+
+    // чтение не создает агрегат, поэтому безопасно и для снимка
+    public int getSubtaskCount() {
+        if (isFrozen()) {
+            return frozenSubtaskCount;
+        }
+        return aggregate != null ? aggregate.size() : 0;
+    }
+
+    public void recalculate() {
+        checkNotFrozen();
+        EpicAggregate epicAggregate = getAggregate();
+        super.setStatus(epicAggregate.getStatus());
+        setStartTime(epicAggregate.getStartTime());
+        setDuration(epicAggregate.getDurationMinutes());
+        endTime = epicAggregate.getEndTime();
+    }
+
+    @Override
+    protected Epic copy(boolean frozen) {
+        return new Epic(this, frozen);
+    }
+
+    private EpicAggregate getAggregate() {
+        if (aggregate == null) {
+            aggregate = new EpicAggregate();
+        }
+        return aggregate;
+    }
+
     @Override
     public String toString() {
         Long duration = super.getDuration() != null ? super.getDuration().toMinutes() : null;
@@ -45,10 +108,10 @@ public class Epic extends Task {
 
     public String toCsvString() {
         StringBuilder csvString = new StringBuilder(super.getId().toString()).append(",")
-                .append(this.getClass().getSimpleName().toUpperCase()).append(",")
-                .append(super.getName()).append(",")
-                .append(super.getStatus().name()).append(",")
-                .append(super.getDescription());
+                .append(this.getClass().getSimpleName().toUpperCase()).append(",");
+        Csv.appendField(csvString, super.getName()).append(",")
+                .append(super.getStatus().name()).append(",");
+        Csv.appendField(csvString, super.getDescription());
         return csvString.append(",,,").toString();
     }
 }
@@ -0,0 +1,112 @@
+package task;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// накопительные значения по подзадачам эпика: счетчики статусов, сумма длительностей
+// и мультимножества дат начала/окончания. Изменение одной подзадачи стоит O(log k)
+class EpicAggregate {
+    private final Map<Integer, Contribution> contributions = new HashMap<>();
+    private final int[] statusCounts = new int[TaskStatus.values().length];
+    private final TreeMap<LocalDateTime, Integer> startTimes = new TreeMap<>();
+    private final TreeMap<LocalDateTime, Integer> endTimes = new TreeMap<>();
+    private long durationMinutes;
+
+    // слепок подзадачи на момент учета: сами объекты подзадач могут меняться снаружи
+    private record Contribution(TaskStatus status, long durationMinutes,
+                                LocalDateTime startTime, LocalDateTime endTime) {
+    }
+
+    EpicAggregate() {
+    }
+
+    EpicAggregate(EpicAggregate source) {
+        contributions.putAll(source.contributions);
+        System.arraycopy(source.statusCounts, 0, statusCounts, 0, statusCounts.length);
+        startTimes.putAll(source.startTimes);
+        endTimes.putAll(source.endTimes);
+        durationMinutes = source.durationMinutes;
+    }
+
+    // слепок строится до изменения счетчиков, чтобы ошибка в данных подзадачи не оставила агрегат
+    // в промежуточном состоянии. Подзадача без статуса (например, неизвестный статус из JSON) считается
+    // начатой - так же, как при полном пересчете: эпик с ней не NEW и не DONE
+    void put(Subtask subtask) {
+        Contribution contribution = new Contribution(
+                subtask.getStatus() != null ? subtask.getStatus() : TaskStatus.IN_PROGRESS,
+                subtask.getDuration() != null ? subtask.getDuration().toMinutes() : 0L,
+                subtask.getStartTime().orElse(null),
+                subtask.getEndTime().orElse(null));
+        remove(subtask.getId());
+        contributions.put(subtask.getId(), contribution);
+
+        statusCounts[contribution.status().ordinal()]++;
+        durationMinutes += contribution.durationMinutes();
+        if (contribution.startTime() != null) {
+            startTimes.merge(contribution.startTime(), 1, Integer::sum);
+        }
+        if (contribution.endTime() != null) {
+            endTimes.merge(contribution.endTime(), 1, Integer::sum);
+        }
+    }
+
+    boolean remove(Integer subtaskId) {
+        Contribution contribution = contributions.remove(subtaskId);
+        if (contribution == null) {
+            return false;
+        }
+
+        statusCounts[contribution.status().ordinal()]--;
+        durationMinutes -= contribution.durationMinutes();
+        if (contribution.startTime() != null) {
+            decrement(startTimes, contribution.startTime());
+        }
+        if (contribution.endTime() != null) {
+            decrement(endTimes, contribution.endTime());
+        }
+        return true;
+    }
+
+    void clear() {
+        contributions.clear();
+        startTimes.clear();
+        endTimes.clear();
+        durationMinutes = 0;
+        for (int i = 0; i < statusCounts.length; i++) {
+            statusCounts[i] = 0;
+        }
+    }
+
+    int size() {
+        return contributions.size();
+    }
+
+    // эпик без подзадач или только с новыми подзадачами - NEW, только с выполненными - DONE
+    TaskStatus getStatus() {
+        int total = contributions.size();
+        if (statusCounts[TaskStatus.NEW.ordinal()] == total) {
+            return TaskStatus.NEW;
+        } else if (statusCounts[TaskStatus.DONE.ordinal()] == total) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    long getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    LocalDateTime getStartTime() {
+        return startTimes.isEmpty() ? null : startTimes.firstKey();
+    }
+
+    LocalDateTime getEndTime() {
+        return endTimes.isEmpty() ? null : endTimes.lastKey();
+    }
+
+    private static void decrement(TreeMap<LocalDateTime, Integer> multiset, LocalDateTime key) {
+        multiset.computeIfPresent(key, (time, count) -> count == 1 ? null : count - 1);
+    }
+}
@@ -6,14 +6,25 @@ public class Subtask extends Task {
     public Subtask() {
     }
 
+    private Subtask(Subtask source, boolean frozen) {
+        super(source, frozen);
+        this.epicId = source.epicId;
+    }
+
     public Integer getEpicId() {
         return epicId;
     }
 
     public void setEpicId(int epicId) {
+        checkNotFrozen();
         this.epicId = epicId;
     }
 
+    @Override
+    protected Subtask copy(boolean frozen) {
+        return new Subtask(this, frozen);
+    }
+
     @Override
     public String toString() {
         Long duration = super.getDuration() != null ? super.getDuration().toMinutes() : null;
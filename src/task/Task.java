@@ -1,5 +1,6 @@
 package task;
 
+import util.Csv;
 import util.Formats;
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -13,9 +14,23 @@ public class Task implements Cloneable {
     private TaskStatus status;
     private Duration duration;
     private LocalDateTime startTime;
+    // замороженный снимок (см. snapshot) не меняется и может разделяться между потоками без копирования
+    private final transient boolean frozen;
 
     public Task() {
         this.status = TaskStatus.NEW;
+        this.frozen = false;
+    }
+
+    // копия задачи; frozen задается при создании копии и больше не меняется
+    protected Task(Task source, boolean frozen) {
+        this.name = source.name;
+        this.description = source.description;
+        this.id = source.id;
+        this.status = source.status;
+        this.duration = source.duration;
+        this.startTime = source.startTime;
+        this.frozen = frozen;
     }
 
     public String getName() {
@@ -23,6 +38,7 @@ public class Task implements Cloneable {
     }
 
     public void setName(String name) {
+        checkNotFrozen();
         this.name = name;
     }
 
@@ -31,6 +47,7 @@ public class Task implements Cloneable {
     }
 
     public void setDescription(String description) {
+        checkNotFrozen();
         this.description = description;
     }
 
@@ -39,6 +56,7 @@ public class Task implements Cloneable {
     }
 
     public void setId(Integer id) {
+        checkNotFrozen();
         this.id = id;
     }
 
@@ -47,6 +65,7 @@ public class Task implements Cloneable {
     }
 
     public void setStatus(TaskStatus status) {
+        checkNotFrozen();
         this.status = status;
     }
 
@@ -55,6 +74,7 @@ public class Task implements Cloneable {
     }
 
     public void setDuration(Long duration) {
+        checkNotFrozen();
         this.duration = Duration.ofMinutes(duration);
     }
 
@@ -63,6 +83,7 @@ public class Task implements Cloneable {
     }
 
     public void setStartTime(LocalDateTime startTime) {
+        checkNotFrozen();
         this.startTime = startTime;
     }
 
@@ -83,9 +104,30 @@ public class Task implements Cloneable {
         return Objects.hash(id);
     }
 
+    // копия снимка снова изменяема
     @Override
     public Task clone() throws CloneNotSupportedException {
-        return (Task) super.clone();
+        return copy(false);
+    }
+
+    // неизменяемая копия задачи на текущий момент; у снимка сеттеры бросают UnsupportedOperationException
+    public Task snapshot() {
+        return frozen ? this : copy(true);
+    }
+
+    // наследники возвращают копию своего типа
+    protected Task copy(boolean frozen) {
+        return new Task(this, frozen);
+    }
+
+    public boolean isFrozen() {
+        return frozen;
+    }
+
+    protected void checkNotFrozen() {
+        if (frozen) {
+            throw new UnsupportedOperationException("Снимок задачи с идентификатором " + id + " нельзя изменить");
+        }
     }
 
     @Override
@@ -104,10 +146,10 @@ public class Task implements Cloneable {
 
     public String toCsvString() {
         StringBuilder csvString = new StringBuilder(id.toString()).append(",")
-                .append(this.getClass().getSimpleName().toUpperCase()).append(",")
-                .append(name).append(",")
-                .append(status.name()).append(",")
-                .append(description).append(",")
+                .append(this.getClass().getSimpleName().toUpperCase()).append(",");
+        Csv.appendField(csvString, name).append(",")
+                .append(status.name()).append(",");
+        Csv.appendField(csvString, description).append(",")
                 .append(duration.toMinutes()).append(",");
 
         if (this.startTime != null) {
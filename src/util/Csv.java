@@ -0,0 +1,27 @@
+package util;
+
+public class Csv {
+    // поле с запятой, кавычкой или переводом строки берется в кавычки, кавычки внутри удваиваются
+    public static StringBuilder appendField(StringBuilder csvString, String value) {
+        if (value == null) {
+            return csvString.append("null");
+        }
+        boolean needsQuotes = false;
+        for (int i = 0; i < value.length() && !needsQuotes; i++) {
+            char c = value.charAt(i);
+            needsQuotes = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!needsQuotes) {
+            return csvString.append(value);
+        }
+        csvString.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                csvString.append('"');
+            }
+            csvString.append(c);
+        }
+        return csvString.append('"');
+    }
+}
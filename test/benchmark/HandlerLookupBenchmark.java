@@ -0,0 +1,106 @@
+package benchmark;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import handler.BaseHttpHandler;
+import handler.TaskHandler;
+import manager.HistoryManager;
+import manager.InMemoryHistoryManager;
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import task.Task;
+import util.ObjectBuilder;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.List;
+
+// GET /tasks/{id} на уровне обработчика, без сети: прежняя схема с тремя вызовами getTaskById против
+// одного lookupTask. Считаются время запроса и число записей в историю просмотров на запрос.
+// Запуск: java benchmark.HandlerLookupBenchmark [число запросов, по умолчанию 200000]
+public class HandlerLookupBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        CountingHistory history = new CountingHistory();
+        TaskManager manager = new InMemoryTaskManager(history);
+        for (int i = 0; i < 1000; i++) {
+            manager.addTask(ObjectBuilder.of(Task::new)
+                    .with(Task::setName, "Task " + i)
+                    .with(Task::setDescription, "Generated task")
+                    .with(Task::setDuration, 30L)
+                    .build());
+        }
+        int firstId = InMemoryTaskManager.getLastTaskId() - 999;
+
+        measure("три getTaskById", new LegacyTaskByIdHandler(manager), history, requests, firstId);
+        measure("один lookupTask", new TaskHandler(manager), history, requests, firstId);
+    }
+
+    private static void measure(String name, HttpHandler handler, CountingHistory history, int requests,
+                                int firstId) throws IOException {
+        long best = Long.MAX_VALUE;
+        long views = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            history.views = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                handler.handle(new StubExchange("GET", "/tasks/" + (firstId + i % 1000)));
+            }
+            best = Math.min(best, System.nanoTime() - start);
+            views = history.views;
+        }
+        System.out.printf("%-16s нс/запрос: %6d, записей в историю на запрос: %.1f%n", name, best / requests,
+                (double) views / requests);
+    }
+
+    // прежняя обработка GET /tasks/{id}
+    private static class LegacyTaskByIdHandler extends BaseHttpHandler implements HttpHandler {
+
+        LegacyTaskByIdHandler(TaskManager taskManager) {
+            super(taskManager);
+        }
+
+        @Override
+        public void handle(HttpExchange exchange) throws IOException {
+            int id = getIdFromPath(exchange);
+            if (taskManager.getTaskById(id) != null && taskManager.getTaskById(id).getClass() == Task.class) {
+                sendText(exchange, getGson(exchange).toJson(taskManager.getTaskById(id)), 200);
+            } else {
+                sendNotFound(exchange);
+            }
+        }
+    }
+
+    // история, которая считает записи
+    private static class CountingHistory implements HistoryManager {
+        private final InMemoryHistoryManager history = new InMemoryHistoryManager();
+        private long views;
+
+        @Override
+        public void add(Task task) {
+            views++;
+            history.add(task);
+        }
+
+        @Override
+        public List<Task> getHistory() {
+            return history.getHistory();
+        }
+
+        @Override
+        public void clearHistory() {
+            history.clearHistory();
+        }
+
+        @Override
+        public void remove(Integer id) {
+            history.remove(id);
+        }
+
+        @Override
+        public void removeAll(Collection<Integer> ids) {
+            history.removeAll(ids);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package benchmark;
+
+import manager.InMemoryHistoryManager;
+import task.Task;
+import util.ObjectBuilder;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+// байты, выделяемые на один вызов getHistory: прежнее копирование каждой задачи при чтении против
+// неизменяемых снимков, которые создаются один раз при просмотре и отдаются без копирования.
+// Запуск: java benchmark.HistoryAllocationBenchmark [размер истории, по умолчанию 1000]
+public class HistoryAllocationBenchmark {
+    private static final int OPERATIONS = 20_000;
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) throws CloneNotSupportedException {
+        int historySize = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        List<Task> tasks = new ArrayList<>(historySize);
+        for (int i = 1; i <= historySize; i++) {
+            tasks.add(ObjectBuilder.of(Task::new)
+                    .with(Task::setId, i)
+                    .with(Task::setName, "Task " + i)
+                    .with(Task::setDescription, "Generated task")
+                    .with(Task::setDuration, 30L)
+                    .with(Task::setStartTime, LocalDateTime.of(2025, 1, 1, 9, 0).plusMinutes(30L * i))
+                    .build());
+        }
+        InMemoryHistoryManager history = new InMemoryHistoryManager();
+        tasks.forEach(history::add);
+
+        // прогрев, чтобы в замер не попали выделения JIT и загрузки классов
+        for (int round = 0; round < 3; round++) {
+            measureReadWithClone(history);
+            measureRead(history);
+        }
+        System.out.printf("Размер истории: %d%n", historySize);
+        System.out.printf("getHistory, копии при чтении: %,12d байт/операцию%n", measureReadWithClone(history));
+        System.out.printf("getHistory, снимки:           %,12d байт/операцию%n", measureRead(history));
+    }
+
+    private static long measureRead(InMemoryHistoryManager history) {
+        long start = allocatedBytes();
+        long sink = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            sink += history.getHistory().size();
+        }
+        return perOperation(start, sink);
+    }
+
+    // прежний getHistory: список и копия каждой задачи на каждый вызов. Здесь копии собираются во второй
+    // список, поэтому из замера вычитается один список - выделения текущего getHistory
+    private static long measureReadWithClone(InMemoryHistoryManager history) throws CloneNotSupportedException {
+        long start = allocatedBytes();
+        long sink = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            List<Task> copies = new ArrayList<>();
+            for (Task task : history.getHistory()) {
+                copies.add(task.clone());
+            }
+            sink += copies.size();
+        }
+        return perOperation(start, sink) - measureRead(history);
+    }
+
+    private static long perOperation(long startBytes, long sink) {
+        long bytes = allocatedBytes() - startBytes;
+        return sink < 0 ? bytes : bytes / OPERATIONS;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+}
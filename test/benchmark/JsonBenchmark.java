@@ -0,0 +1,93 @@
+package benchmark;
+
+import com.google.gson.Gson;
+import handler.BaseHttpHandler;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import util.ObjectBuilder;
+import java.io.IOException;
+import java.io.Writer;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntFunction;
+
+// размер ответа на элемент и скорость сериализации списков задач в компактном и отформатированном JSON.
+// Запуск: java benchmark.JsonBenchmark [число элементов в списке, по умолчанию 100000]
+public class JsonBenchmark {
+    private static final int ROUNDS = 5;
+
+    public static void main(String[] args) throws IOException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        LocalDateTime start = LocalDateTime.of(2025, 1, 1, 9, 0);
+
+        run("Task", size, i -> ObjectBuilder.of(Task::new)
+                .with(Task::setId, i)
+                .with(Task::setName, "Task " + i)
+                .with(Task::setDescription, "Generated task")
+                .with(Task::setDuration, 30L)
+                .with(Task::setStartTime, i % 2 == 0 ? start.plusMinutes(30L * i) : null)
+                .build());
+        run("Epic", size, i -> ObjectBuilder.of(Epic::new)
+                .with(Epic::setId, i)
+                .with(Epic::setName, "Epic " + i)
+                .with(Epic::setDescription, "Generated epic")
+                .build());
+        run("Subtask", size, i -> ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setId, i)
+                .with(Subtask::setName, "Subtask " + i)
+                .with(Subtask::setDescription, "Generated subtask")
+                .with(Subtask::setStatus, TaskStatus.IN_PROGRESS)
+                .with(Subtask::setDuration, 15L)
+                .with(Subtask::setEpicId, 1)
+                .build());
+    }
+
+    private static void run(String name, int size, IntFunction<Task> factory) throws IOException {
+        List<Task> tasks = new ArrayList<>(size);
+        for (int i = 1; i <= size; i++) {
+            tasks.add(factory.apply(i));
+        }
+        measure(name, "pretty", BaseHttpHandler.gson, tasks);
+        measure(name, "compact", BaseHttpHandler.compactGson, tasks);
+    }
+
+    private static void measure(String name, String mode, Gson gson, List<Task> tasks) throws IOException {
+        long best = Long.MAX_VALUE;
+        long bytes = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            CountingWriter writer = new CountingWriter();
+            long start = System.nanoTime();
+            gson.toJson(tasks, writer);
+            best = Math.min(best, System.nanoTime() - start);
+            bytes = writer.count;
+        }
+        System.out.printf("%-8s %-8s байт на элемент: %4d, элементов/с: %,12d%n", name, mode,
+                bytes / tasks.size(), tasks.size() * 1_000_000_000L / Math.max(1, best));
+    }
+
+    // считает символы ответа (в тестовых данных только ASCII), ничего не сохраняя
+    private static class CountingWriter extends Writer {
+        private long count;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String value, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
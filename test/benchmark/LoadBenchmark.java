@@ -0,0 +1,44 @@
+package benchmark;
+
+import manager.FileBackedTaskManager;
+import manager.PersistenceConfig;
+import util.ObjectBuilder;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// время загрузки сгенерированного файла при разном числе потоков разбора.
+// Запуск: java benchmark.LoadBenchmark [число задач, по умолчанию 5000000] [максимум потоков]
+public class LoadBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Path file = Files.createTempFile("load-benchmark", ".txt");
+        try {
+            TaskFiles.generateCsv(file, taskCount);
+            System.out.printf("Файл: %d задач, %d МБ%n", taskCount, Files.size(file) / (1024 * 1024));
+
+            long baseline = 0;
+            for (int threads = 1; threads <= maxThreads; threads *= 2) {
+                PersistenceConfig config = ObjectBuilder.of(PersistenceConfig::new)
+                        .with(PersistenceConfig::setLoadThreads, threads)
+                        .build();
+                long best = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    FileBackedTaskManager.loadFromFile(file, config);
+                    best = Math.min(best, System.nanoTime() - start);
+                }
+                if (threads == 1) {
+                    baseline = best;
+                }
+                System.out.printf("Потоков: %2d, загрузка: %6d мс, ускорение: %.2f%n",
+                        threads, best / 1_000_000, (double) baseline / best);
+            }
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package benchmark;
+
+import manager.InMemoryTaskManager;
+import manager.TaskQuery;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import util.ObjectBuilder;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+// поиск задач через findTasks (индексы статуса, времени начала и подзадач эпика) против полного перебора.
+// Запуск: java benchmark.QueryBenchmark [число задач, по умолчанию 1000000]
+public class QueryBenchmark {
+    private static final int ROUNDS = 20;
+    private static final LocalDateTime START = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    public static void main(String[] args) {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        InMemoryTaskManager manager = new InMemoryTaskManager(generate(taskCount));
+
+        measure(manager, "IN_PROGRESS подзадачи", ObjectBuilder.of(TaskQuery::new)
+                .with(TaskQuery::setType, Subtask.class)
+                .with(TaskQuery::setStatus, TaskStatus.IN_PROGRESS));
+        measure(manager, "начало за неделю", ObjectBuilder.of(TaskQuery::new)
+                .with(TaskQuery::setFrom, START.plusDays(7))
+                .with(TaskQuery::setTo, START.plusDays(14)));
+        measure(manager, "DONE подзадачи эпика", ObjectBuilder.of(TaskQuery::new)
+                .with(TaskQuery::setEpicId, taskCount / 2 / 1000 * 1000 + 1)
+                .with(TaskQuery::setStatus, TaskStatus.DONE));
+        measure(manager, "DONE с префиксом имени", ObjectBuilder.of(TaskQuery::new)
+                .with(TaskQuery::setStatus, TaskStatus.DONE)
+                .with(TaskQuery::setNamePrefix, "Subtask 12"));
+    }
+
+    // эпик на каждую тысячу задач; подзадачи по кругу NEW/IN_PROGRESS/DONE, задачи - по минуте без пересечений
+    private static Map<Integer, Task> generate(int taskCount) {
+        Map<Integer, Task> tasks = new HashMap<>();
+        for (int id = 1; id <= taskCount; id++) {
+            Task task;
+            if (id % 1000 == 1) {
+                task = ObjectBuilder.of(Epic::new)
+                        .with(Epic::setName, "Epic " + id)
+                        .build();
+            } else if (id % 2 == 0) {
+                task = ObjectBuilder.of(Subtask::new)
+                        .with(Subtask::setName, "Subtask " + id)
+                        .with(Subtask::setStatus, TaskStatus.values()[id % 3])
+                        .with(Subtask::setDuration, 15L)
+                        .with(Subtask::setEpicId, id / 1000 * 1000 + 1)
+                        .build();
+            } else {
+                task = ObjectBuilder.of(Task::new)
+                        .with(Task::setName, "Task " + id)
+                        .with(Task::setDuration, 1L)
+                        .with(Task::setStartTime, START.plusMinutes(id))
+                        .build();
+            }
+            task.setId(id);
+            tasks.put(id, task);
+        }
+        return tasks;
+    }
+
+    private static void measure(InMemoryTaskManager manager, String name, ObjectBuilder<TaskQuery> builder) {
+        TaskQuery query = builder.build();
+        long scan = best(() -> manager.getAllTasks().stream().filter(query::matches).toList());
+        long indexed = best(() -> manager.findTasks(query));
+        System.out.printf("%-24s найдено: %7d, индекс: %8.3f мс, перебор: %8.3f мс, ускорение: %7.1f%n", name,
+                manager.findTasks(query).size(), indexed / 1e6, scan / 1e6, (double) scan / indexed);
+    }
+
+    private static long best(Supplier<List<Task>> search) {
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            search.get();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+}
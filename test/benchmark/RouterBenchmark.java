@@ -0,0 +1,89 @@
+package benchmark;
+
+import handler.EndPoint;
+import handler.HttpMethod;
+import handler.Router;
+import java.lang.management.ManagementFactory;
+
+// стоимость сопоставления запроса с маршрутом: прежний разбор через split("/") и Integer.parseInt
+// против дерева Router. Время и выделенные байты на запрос.
+// Запуск: java benchmark.RouterBenchmark [число запросов в раунде, по умолчанию 2000000]
+public class RouterBenchmark {
+    private static final int ROUNDS = 5;
+    private static final String[][] REQUESTS = {
+            {"GET", "/tasks"},
+            {"GET", "/tasks/125"},
+            {"DELETE", "/subtasks/7"},
+            {"GET", "/epics/42/subtasks"},
+            {"POST", "/epics"},
+            {"GET", "/tasks/abc"},
+    };
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        int requests = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        measure("split + parseInt", requests, RouterBenchmark::legacyMatch);
+        measure("Router", requests, Router.DEFAULT::match);
+    }
+
+    private static void measure(String name, int requests, Matcher matcher) {
+        long bestNanos = Long.MAX_VALUE;
+        long bestBytes = Long.MAX_VALUE;
+        int sink = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            long startBytes = THREADS.getThreadAllocatedBytes(Thread.currentThread().threadId());
+            long start = System.nanoTime();
+            for (int i = 0; i < requests; i++) {
+                String[] request = REQUESTS[i % REQUESTS.length];
+                sink += matcher.match(request[0], request[1]).ordinal();
+            }
+            bestNanos = Math.min(bestNanos, System.nanoTime() - start);
+            bestBytes = Math.min(bestBytes,
+                    THREADS.getThreadAllocatedBytes(Thread.currentThread().threadId()) - startBytes);
+        }
+        System.out.printf("%-18s нс/запрос: %6.1f, байт/запрос: %6d (%d)%n", name, (double) bestNanos / requests,
+                bestBytes / requests, sink % 10);
+    }
+
+    // прежняя логика getEndPoint обработчиков задач и эпиков
+    private static EndPoint legacyMatch(String method, String path) {
+        HttpMethod httpMethod = HttpMethod.valueOf(method);
+        String[] pathParts = path.split("/");
+        if (pathParts.length > 2) {
+            try {
+                Integer.parseInt(pathParts[2]);
+            } catch (NumberFormatException e) {
+                return EndPoint.UNKNOWN;
+            }
+        }
+        boolean isEpics = pathParts[1].equals("epics");
+        String resource = pathParts[1];
+        if (pathParts.length == 2) {
+            if (HttpMethod.GET.equals(httpMethod)) {
+                return isEpics ? EndPoint.GET_EPICS : resource.equals("tasks") ? EndPoint.GET_TASKS
+                        : EndPoint.GET_SUBTASKS;
+            } else if (HttpMethod.POST.equals(httpMethod)) {
+                return isEpics ? EndPoint.POST_EPICS : resource.equals("tasks") ? EndPoint.POST_TASKS
+                        : EndPoint.POST_SUBTASKS;
+            }
+        } else if (pathParts.length == 3) {
+            if (HttpMethod.GET.equals(httpMethod)) {
+                return isEpics ? EndPoint.GET_EPICS_BY_ID : resource.equals("tasks") ? EndPoint.GET_TASKS_BY_ID
+                        : EndPoint.GET_SUBTASKS_BY_ID;
+            }
+            if (HttpMethod.DELETE.equals(httpMethod)) {
+                return isEpics ? EndPoint.DELETE_EPICS_BY_ID : resource.equals("tasks")
+                        ? EndPoint.DELETE_TASKS_BY_ID : EndPoint.DELETE_SUBTASKS_BY_ID;
+            }
+        } else if (pathParts.length == 4 && isEpics && pathParts[3].equals("subtasks")
+                && HttpMethod.GET.equals(httpMethod)) {
+            return EndPoint.GET_EPICS_SUBTASKS_BY_ID;
+        }
+        return EndPoint.UNKNOWN;
+    }
+
+    private interface Matcher {
+        EndPoint match(String method, String path);
+    }
+}
@@ -0,0 +1,44 @@
+package benchmark;
+
+import manager.FileBackedTaskManager;
+import manager.SnapshotConverter;
+import manager.SnapshotFormat;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// размер файла и время записи/загрузки снимка в форматах CSV и BINARY.
+// Запуск: java benchmark.SnapshotFormatBenchmark [число задач, по умолчанию 1000000]
+public class SnapshotFormatBenchmark {
+    private static final int ROUNDS = 3;
+
+    public static void main(String[] args) throws IOException {
+        int taskCount = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Path source = Files.createTempFile("format-benchmark", ".txt");
+        Path csv = Files.createTempFile("format-benchmark", ".csv");
+        Path binary = Files.createTempFile("format-benchmark", ".bin");
+        try {
+            TaskFiles.generateCsv(source, taskCount);
+            for (SnapshotFormat format : SnapshotFormat.values()) {
+                Path target = format == SnapshotFormat.BINARY ? binary : csv;
+                long bestWrite = Long.MAX_VALUE;
+                long bestLoad = Long.MAX_VALUE;
+                for (int round = 0; round < ROUNDS; round++) {
+                    long start = System.nanoTime();
+                    SnapshotConverter.convert(source, target, format);
+                    bestWrite = Math.min(bestWrite, System.nanoTime() - start);
+
+                    start = System.nanoTime();
+                    FileBackedTaskManager.loadFromFile(target);
+                    bestLoad = Math.min(bestLoad, System.nanoTime() - start);
+                }
+                System.out.printf("%-6s размер: %5d МБ, чтение CSV + запись: %6d мс, загрузка: %6d мс%n", format,
+                        Files.size(target) / (1024 * 1024), bestWrite / 1_000_000, bestLoad / 1_000_000);
+            }
+        } finally {
+            Files.deleteIfExists(source);
+            Files.deleteIfExists(csv);
+            Files.deleteIfExists(binary);
+        }
+    }
+}
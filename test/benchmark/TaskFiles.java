@@ -0,0 +1,32 @@
+package benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+// генерация файлов задач для бенчмарков
+class TaskFiles {
+
+    // эпик на каждую тысячу задач, остальные - подзадачи и задачи без пересечений по времени
+    static void generateCsv(Path file, int taskCount) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("id,type,name,status,description,duration,startTime,epicId");
+            writer.newLine();
+            for (int id = 1; id <= taskCount; id++) {
+                if (id % 1000 == 1) {
+                    writer.write(id + ",EPIC,Epic " + id + ",NEW,Generated epic,,,");
+                } else if (id % 2 == 0) {
+                    writer.write(id + ",SUBTASK,Subtask " + id + ",IN_PROGRESS,Generated subtask,15,,"
+                            + (id / 1000 * 1000 + 1));
+                } else {
+                    int day = 1 + id % 28;
+                    int minute = id % 60;
+                    writer.write(id + ",TASK,\"Task, " + id + "\",NEW,Generated task,1,"
+                            + String.format("%02d.03.2025 10:%02d", day, minute) + ",");
+                }
+                writer.newLine();
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package controller;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import manager.ConcurrentTaskManager;
+import manager.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import util.ObjectBuilder;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public class HttpTaskServerTest {
+    private static final int PORT = 8081;
+    private final TaskManager manager = new ConcurrentTaskManager();
+    private HttpTaskServer taskServer;
+
+    @AfterEach
+    public void shutDown() {
+        manager.clearTasks();
+        if (taskServer != null) {
+            taskServer.stopServer();
+        }
+    }
+
+    @Test
+    public void virtualThreadsServeConcurrentRequests() throws IOException {
+        taskServer = new HttpTaskServer(manager, ObjectBuilder.of(ServerConfig::new)
+                .with(ServerConfig::setPort, PORT)
+                .with(ServerConfig::setBacklog, 64)
+                .with(ServerConfig::setExecutionMode, ExecutionMode.VIRTUAL_THREADS)
+                .build());
+        taskServer.startServer();
+
+        HttpClient client = HttpClient.newHttpClient();
+        List<CompletableFuture<HttpResponse<String>>> responses = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            String taskJson = "{\"name\":\"Task " + i + "\",\"description\":\"Some description\",\"duration\":30}";
+            responses.add(client.sendAsync(HttpRequest.newBuilder()
+                    .POST(HttpRequest.BodyPublishers.ofString(taskJson))
+                    .uri(URI.create("http://localhost:" + PORT + "/tasks"))
+                    .build(), HttpResponse.BodyHandlers.ofString()));
+        }
+
+        responses.forEach(response -> assertEquals(201, response.join().statusCode()));
+        assertEquals(50, manager.getTasksByType(Task.class).size());
+    }
+
+    @Test
+    public void boundedQueueShedsLoadWithRetryAfter() throws IOException, InterruptedException {
+        taskServer = new HttpTaskServer(manager, ObjectBuilder.of(ServerConfig::new)
+                .with(ServerConfig::setPort, PORT)
+                .with(ServerConfig::setExecutionMode, ExecutionMode.BOUNDED_QUEUE)
+                .with(ServerConfig::setThreads, 1)
+                .with(ServerConfig::setQueueCapacity, 0)
+                .with(ServerConfig::setRetryAfterSeconds, 5)
+                .build());
+        taskServer.startServer();
+
+        // запрос без обещанного тела занимает единственный рабочий поток
+        try (Socket slowClient = new Socket("localhost", PORT)) {
+            OutputStream out = slowClient.getOutputStream();
+            out.write(("POST /tasks HTTP/1.1\r\nHost: localhost\r\nContent-Length: 100\r\n\r\n")
+                    .getBytes(StandardCharsets.UTF_8));
+            out.flush();
+
+            HttpClient client = HttpClient.newHttpClient();
+            HttpRequest request = HttpRequest.newBuilder()
+                    .GET()
+                    .uri(URI.create("http://localhost:" + PORT + "/tasks"))
+                    .build();
+            HttpResponse<String> response = null;
+            for (int attempt = 0; attempt < 50; attempt++) {
+                response = client.send(request, HttpResponse.BodyHandlers.ofString());
+                if (response.statusCode() == 503) {
+                    break;
+                }
+                Thread.sleep(20);
+            }
+
+            assertNotNull(response);
+            assertEquals(503, response.statusCode());
+            assertEquals("5", response.headers().firstValue("Retry-After").orElse(null));
+            assertTrue(taskServer.getShedRequestCount() > 0);
+        }
+    }
+
+    @Test
+    public void eventsStreamTaskChanges() throws Exception {
+        taskServer = new HttpTaskServer(manager, ObjectBuilder.of(ServerConfig::new)
+                .with(ServerConfig::setPort, PORT)
+                .with(ServerConfig::setExecutionMode, ExecutionMode.VIRTUAL_THREADS)
+                .build());
+        taskServer.startServer();
+
+        HttpResponse<InputStream> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:" + PORT + "/events"))
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        assertEquals("text/event-stream;charset=utf-8", response.headers().firstValue("Content-Type").orElseThrow());
+
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        manager.addTask(epic);
+        manager.addTask(ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setStatus, TaskStatus.DONE)
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setEpicId, epic.getId())
+                .build());
+
+        List<String> events = new ArrayList<>();
+        String epicData = null;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(),
+                StandardCharsets.UTF_8))) {
+            while (events.size() < 3) {
+                String line = reader.readLine();
+                if (line.startsWith("event: ")) {
+                    events.add(line.substring("event: ".length()));
+                } else if (line.startsWith("data: ") && events.getLast().equals("epic.updated")) {
+                    epicData = line.substring("data: ".length());
+                }
+            }
+        }
+        // эпик пересчитывается до того, как добавление подзадачи завершено
+        assertEquals(List.of("epic.created", "epic.updated", "subtask.created"), events);
+        assertTrue(epicData.contains("\"status\":\"DONE\""));
+    }
+
+    @Test
+    public void eventsAreUnavailableOnDispatcherThread() throws IOException, InterruptedException {
+        taskServer = new HttpTaskServer(manager, ObjectBuilder.of(ServerConfig::new)
+                .with(ServerConfig::setPort, PORT)
+                .build());
+        taskServer.startServer();
+
+        HttpResponse<String> response = HttpClient.newHttpClient().send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:" + PORT + "/events"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(503, response.statusCode());
+    }
+}
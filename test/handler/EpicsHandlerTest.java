@@ -9,6 +9,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import task.Epic;
+import task.Task;
 import util.ObjectBuilder;
 import java.io.IOException;
 import java.net.URI;
@@ -95,6 +96,60 @@ public class EpicsHandlerTest {
         assertEquals(404, response.statusCode());
     }
 
+    @Test
+    public void testNotModifiedIsNotAView() throws IOException, InterruptedException {
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        manager.addTask(epic);
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        manager.addTask(task);
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/epics/" + epic.getId()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        String epicETag = response.headers().firstValue("ETag").orElseThrow();
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/epics/" + epic.getId() + "/subtasks"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        String subtasksETag = response.headers().firstValue("ETag").orElseThrow();
+        manager.getTaskById(task.getId());
+        List<Integer> history = manager.getHistory().stream().map(Task::getId).toList();
+
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/epics/" + epic.getId()))
+                .header("If-None-Match", epicETag)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, response.statusCode());
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/epics/" + epic.getId() + "/subtasks"))
+                .header("If-None-Match", subtasksETag)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, response.statusCode());
+        // просмотренный последним остается последним
+        assertEquals(history, manager.getHistory().stream().map(Task::getId).toList());
+
+        // задача другого типа по адресу эпика не находится, даже с подходящей датой
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/epics/" + task.getId()))
+                .header("If-Modified-Since", "Fri, 31 Dec 9999 23:59:59 GMT")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, response.statusCode());
+    }
+
     @Test
     public void testPostSubtasks() throws IOException, InterruptedException {
         Epic epic = ObjectBuilder.of(Epic::new)
@@ -0,0 +1,61 @@
+package handler;
+
+import manager.InMemoryTaskManager;
+import manager.TaskManager;
+import org.junit.jupiter.api.Test;
+import task.Task;
+import util.ObjectBuilder;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class EventBroadcasterTest {
+    private final TaskManager manager = new InMemoryTaskManager();
+
+    @Test
+    public void slowSubscriberIsDroppedWithoutBlockingOthers() throws InterruptedException {
+        EventBroadcaster broadcaster = new EventBroadcaster(manager, 2);
+        EventBroadcaster.Subscriber slow = broadcaster.subscribe(10);
+        EventBroadcaster.Subscriber fast = broadcaster.subscribe(10);
+
+        for (int i = 0; i < 3; i++) {
+            manager.addTask(createTask(i));
+            if (i < 2) {
+                String frame = new String(fast.poll(0).getBytes(), StandardCharsets.UTF_8);
+                assertTrue(frame.contains("event: task.created\n"));
+                assertTrue(frame.contains("\"name\":\"Task " + i + "\""));
+            }
+        }
+
+        // буфер медленного подписчика переполнен - он отключен, недоставленные события отброшены
+        assertSame(EventBroadcaster.CLOSED, slow.poll(0));
+        assertEquals(1, broadcaster.getDroppedCount());
+        assertEquals(1, broadcaster.getSubscriberCount());
+        assertNotNull(fast.poll(0));
+
+        assertNull(broadcaster.subscribe(1));
+        broadcaster.close();
+        assertSame(EventBroadcaster.CLOSED, fast.poll(0));
+        assertEquals(0, broadcaster.getSubscriberCount());
+    }
+
+    @Test
+    public void framesAreEncodedOnce() throws InterruptedException {
+        EventBroadcaster broadcaster = new EventBroadcaster(manager, 4);
+        EventBroadcaster.Subscriber first = broadcaster.subscribe(10);
+        EventBroadcaster.Subscriber second = broadcaster.subscribe(10);
+
+        manager.addTask(createTask(0));
+
+        assertSame(first.poll(0).getBytes(), second.poll(0).getBytes());
+        broadcaster.close();
+    }
+
+    private static Task createTask(int i) {
+        return ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Task " + i)
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+    }
+}
@@ -4,7 +4,9 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonParser;
 import controller.HttpTaskServer;
+import controller.ServerConfig;
 import manager.InMemoryTaskManager;
+import manager.PartitionedHistoryManager;
 import manager.TaskManager;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -102,4 +104,44 @@ public class HistoryHandlerTest {
         jsonArray = jsonElement.getAsJsonArray();
         assertEquals(3, jsonArray.size());
     }
+
+    @Test
+    public void testHistoryIsPartitionedBySession() throws IOException, InterruptedException {
+        TaskManager partitionedManager = new InMemoryTaskManager(new PartitionedHistoryManager());
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        partitionedManager.addTask(task);
+        HttpTaskServer partitionedServer = new HttpTaskServer(partitionedManager, ObjectBuilder.of(ServerConfig::new)
+                .with(ServerConfig::setPort, 8082)
+                .build());
+        partitionedServer.startServer();
+        try {
+            HttpClient client = HttpClient.newHttpClient();
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                    .GET()
+                    .uri(URI.create("http://localhost:8082/tasks/" + task.getId()))
+                    .header("X-Session-Id", "alice")
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(200, response.statusCode());
+
+            response = client.send(HttpRequest.newBuilder()
+                    .GET()
+                    .uri(URI.create("http://localhost:8082/history"))
+                    .header("X-Session-Id", "alice")
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertEquals(1, JsonParser.parseString(response.body()).getAsJsonArray().size());
+
+            response = client.send(HttpRequest.newBuilder()
+                    .GET()
+                    .uri(URI.create("http://localhost:8082/history"))
+                    .header("X-Session-Id", "bob")
+                    .build(), HttpResponse.BodyHandlers.ofString());
+            assertTrue(JsonParser.parseString(response.body()).getAsJsonArray().isEmpty());
+        } finally {
+            partitionedServer.stopServer();
+        }
+    }
 }
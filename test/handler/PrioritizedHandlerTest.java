@@ -93,4 +93,40 @@ public class PrioritizedHandlerTest {
         jsonArray = jsonElement.getAsJsonArray();
         assertEquals(3, jsonArray.size());
     }
+
+    @Test
+    public void testGetPrioritizedInRange() throws IOException, InterruptedException {
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .with(Task::setStartTime, LocalDateTime.of(2025, Month.APRIL, 1, 10, 0))
+                .build();
+        manager.addTask(task);
+        Task task2 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .with(Task::setStartTime, LocalDateTime.of(2025, Month.APRIL, 1, 12, 0))
+                .build();
+        manager.addTask(task2);
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/prioritized?from=2025-04-01T09:00&to=2025-04-01T12:00"))
+                .build();
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        JsonArray jsonArray = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(1, jsonArray.size());
+        assertEquals(task.getId(), jsonArray.get(0).getAsJsonObject().get("id").getAsInt());
+
+        request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/prioritized?from=01.04.2025"))
+                .build();
+        response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
 }
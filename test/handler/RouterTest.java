@@ -0,0 +1,41 @@
+package handler;
+
+import org.junit.jupiter.api.Test;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class RouterTest {
+    private final Router router = Router.DEFAULT;
+
+    @Test
+    public void matchesLiteralAndIdSegments() {
+        assertEquals(EndPoint.GET_TASKS, router.match("GET", "/tasks"));
+        assertEquals(EndPoint.GET_TASKS, router.match("GET", "/tasks/"));
+        assertEquals(EndPoint.DELETE_TASKS_BY_ID, router.match("DELETE", "/tasks/15"));
+        assertEquals(EndPoint.DELETE_TASKS_BATCH, router.match("DELETE", "/tasks/batch"));
+        assertEquals(EndPoint.GET_EPICS_SUBTASKS_BY_ID, router.match("GET", "/epics/2/subtasks"));
+        assertEquals(EndPoint.GET_PRIORITIZED, router.match("GET", "/prioritized"));
+    }
+
+    @Test
+    public void unknownPathsAndMethodsAreNotMatched() {
+        assertEquals(EndPoint.UNKNOWN, router.match("GET", "/tasks/abc"));
+        assertEquals(EndPoint.UNKNOWN, router.match("GET", "/tasks/99999999999"));
+        assertEquals(EndPoint.UNKNOWN, router.match("GET", "/tasks//1"));
+        assertEquals(EndPoint.UNKNOWN, router.match("GET", "/tasksfoo"));
+        assertEquals(EndPoint.UNKNOWN, router.match("PUT", "/tasks"));
+        assertEquals(EndPoint.UNKNOWN, router.match("PROPFIND", "/tasks"));
+
+        assertEquals(Set.of(HttpMethod.GET, HttpMethod.POST), router.getAllowedMethods("/tasks"));
+        assertTrue(router.getAllowedMethods("/tasks/abc").isEmpty());
+    }
+
+    @Test
+    public void parsesIdSegmentInPlace() {
+        assertEquals(15, Router.parseIntSegment("/tasks/15", 1));
+        assertEquals(2, Router.parseIntSegment("/epics/2/subtasks", 1));
+        assertEquals(-1, Router.parseIntSegment("/tasks", 1));
+        assertEquals(-1, Router.parseIntSegment("/tasks/x1", 1));
+    }
+}
@@ -11,6 +11,7 @@ import org.junit.jupiter.api.Test;
 import task.Epic;
 import task.Subtask;
 import task.Task;
+import task.TaskStatus;
 import util.ObjectBuilder;
 import java.io.IOException;
 import java.net.URI;
@@ -238,5 +239,40 @@ public class SubtasksHandlerTest {
         assertTrue(jsonArray.isEmpty());
         assertTrue(manager.getTasksByType(Subtask.class).isEmpty());
     }
-}
 
+    @Test
+    public void testFindSubtasks() throws IOException, InterruptedException {
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        manager.addTask(epic);
+        LocalDateTime start = LocalDateTime.of(2025, Month.MARCH, 3, 9, 0);
+        for (int i = 0; i < 3; i++) {
+            manager.addTask(ObjectBuilder.of(Subtask::new)
+                    .with(Subtask::setName, "Subtask " + i)
+                    .with(Subtask::setDescription, "Some description")
+                    .with(Subtask::setDuration, 30L)
+                    .with(Subtask::setStartTime, start.plusDays(i))
+                    .with(Subtask::setStatus, i == 0 ? TaskStatus.DONE : TaskStatus.IN_PROGRESS)
+                    .with(Subtask::setEpicId, epic.getId())
+                    .build());
+        }
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/subtasks?status=IN_PROGRESS&from=2025-03-04T00:00&to=2025-03-05T00:00"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<Subtask> subtasks = gson.fromJson(response.body(), new SubtaskListTypeToken().getType());
+        assertEquals(1, subtasks.size());
+        assertEquals("Subtask 1", subtasks.getFirst().getName());
+
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/subtasks?status=LATE"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+}
@@ -11,13 +11,20 @@ import org.junit.jupiter.api.Test;
 import task.Task;
 import util.ObjectBuilder;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.Month;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -66,6 +73,108 @@ public class TaskHandlerTest {
         assertArrayEquals(manager.getAllTasks().toArray(), tasksFromHttpApi.toArray());
     }
 
+    @Test
+    public void testGetTasksIsStreamed() throws IOException, InterruptedException {
+        for (int i = 0; i < 2000; i++) {
+            manager.addTask(ObjectBuilder.of(Task::new)
+                    .with(Task::setName, "Task " + i)
+                    .with(Task::setDescription, "Some description")
+                    .with(Task::setDuration, 30L)
+                    .build());
+        }
+
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .build();
+
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertEquals("chunked", response.headers().firstValue("Transfer-Encoding").orElse(null));
+        assertTrue(response.headers().firstValue("Content-Length").isEmpty());
+        List<Task> tasksFromHttpApi = gson.fromJson(response.body(), new TaskListTypeToken().getType());
+        assertEquals(2000, tasksFromHttpApi.size());
+    }
+
+    @Test
+    public void testCompactJsonByDefault() throws IOException, InterruptedException {
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        manager.addTask(task);
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> compact = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/" + task.getId()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertFalse(compact.body().contains("\n"));
+        assertFalse(compact.body().contains("startTime"));
+
+        HttpResponse<String> prettyByQuery = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?pretty"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertTrue(prettyByQuery.body().contains("\n"));
+        assertTrue(prettyByQuery.body().contains("\"startTime\": null"));
+
+        HttpResponse<String> prettyByAccept = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/" + task.getId()))
+                .header("Accept", "application/json; pretty=true")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(gson.toJson(task), prettyByAccept.body());
+        assertEquals(task, gson.fromJson(compact.body(), Task.class));
+    }
+
+    @Test
+    public void testCompressedResponses() throws IOException, InterruptedException {
+        for (int i = 0; i < 500; i++) {
+            manager.addTask(ObjectBuilder.of(Task::new)
+                    .with(Task::setName, "Task " + i)
+                    .with(Task::setDescription, "Some description")
+                    .with(Task::setDuration, 30L)
+                    .build());
+        }
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<InputStream> gzipped = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("Accept-Encoding", "deflate;q=0.5, gzip")
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals("gzip", gzipped.headers().firstValue("Content-Encoding").orElse(null));
+        try (InputStream body = new GZIPInputStream(gzipped.body())) {
+            List<Task> tasks = gson.fromJson(new String(body.readAllBytes(), StandardCharsets.UTF_8),
+                    new TaskListTypeToken().getType());
+            assertEquals(500, tasks.size());
+        }
+
+        HttpResponse<InputStream> deflated = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("Accept-Encoding", "deflate, gzip;q=0")
+                .build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals("deflate", deflated.headers().firstValue("Content-Encoding").orElse(null));
+        try (InputStream body = new InflaterInputStream(deflated.body())) {
+            List<Task> tasks = gson.fromJson(new String(body.readAllBytes(), StandardCharsets.UTF_8),
+                    new TaskListTypeToken().getType());
+            assertEquals(500, tasks.size());
+        }
+
+        // ответ меньше порога не сжимается
+        HttpResponse<String> small = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/1"))
+                .header("Accept-Encoding", "gzip")
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertTrue(small.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(1, gson.fromJson(small.body(), Task.class).getId());
+    }
+
     @Test
     public void testGetTasksById() throws IOException, InterruptedException {
         Task task = ObjectBuilder.of(Task::new)
@@ -207,4 +316,200 @@ public class TaskHandlerTest {
         assertTrue(jsonArray.isEmpty());
         assertTrue(manager.getTasksByType(Task.class).isEmpty());
     }
+
+    @Test
+    public void testGetTasksPage() throws IOException, InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            manager.addTask(ObjectBuilder.of(Task::new)
+                    .with(Task::setName, "Task " + i)
+                    .with(Task::setDescription, "Some description")
+                    .with(Task::setDuration, 30L)
+                    .build());
+        }
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?limit=2&fields=id,name,status"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        JsonArray page = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(2, page.size());
+        assertEquals(Set.of("id", "name", "status"), page.get(0).getAsJsonObject().keySet());
+        String cursor = response.headers().firstValue("X-Next-Cursor").orElseThrow();
+        assertEquals(page.get(1).getAsJsonObject().get("id").getAsString(), cursor);
+
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?limit=2&cursor=" + cursor))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        List<Task> tasks = gson.fromJson(response.body(), new TaskListTypeToken().getType());
+        assertEquals(1, tasks.size());
+        assertEquals("Task 2", tasks.getFirst().getName());
+        assertTrue(response.headers().firstValue("X-Next-Cursor").isEmpty());
+
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?fields=id,secret"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void testUnsupportedMethods() throws IOException, InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .PUT(HttpRequest.BodyPublishers.noBody())
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, response.statusCode());
+        assertEquals("GET, POST", response.headers().firstValue("Allow").orElseThrow());
+
+        response = client.send(HttpRequest.newBuilder()
+                .method("PROPFIND", HttpRequest.BodyPublishers.noBody())
+                .uri(URI.create("http://localhost:8080/tasks/1"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(405, response.statusCode());
+        assertEquals("DELETE, GET", response.headers().firstValue("Allow").orElseThrow());
+
+        response = client.send(HttpRequest.newBuilder()
+                .method("OPTIONS", HttpRequest.BodyPublishers.noBody())
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(204, response.statusCode());
+
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/abc"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, response.statusCode());
+    }
+
+    @Test
+    public void testTaskBatch() throws IOException, InterruptedException {
+        List<Task> batch = List.of(
+                ObjectBuilder.of(Task::new)
+                        .with(Task::setName, "Some name")
+                        .with(Task::setDescription, "Some description")
+                        .with(Task::setDuration, 30L)
+                        .with(Task::setStartTime, LocalDateTime.of(2025, Month.MAY, 1, 10, 0))
+                        .build(),
+                ObjectBuilder.of(Task::new)
+                        .with(Task::setName, "Some other name")
+                        .with(Task::setDescription, "Some description")
+                        .with(Task::setDuration, 30L)
+                        .with(Task::setStartTime, LocalDateTime.of(2025, Month.MAY, 1, 10, 15))
+                        .build());
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(batch)))
+                .uri(URI.create("http://localhost:8080/tasks/batch"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(406, response.statusCode());
+        assertTrue(manager.getAllTasks().isEmpty());
+
+        batch.get(1).setStartTime(LocalDateTime.of(2025, Month.MAY, 1, 10, 30));
+        response = client.send(HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString(gson.toJson(batch)))
+                .uri(URI.create("http://localhost:8080/tasks/batch"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, response.statusCode());
+        JsonArray ids = JsonParser.parseString(response.body()).getAsJsonArray();
+        assertEquals(2, ids.size());
+        assertEquals(2, manager.getTasksByType(Task.class).size());
+
+        response = client.send(HttpRequest.newBuilder()
+                .method("DELETE", HttpRequest.BodyPublishers.ofString(ids.toString()))
+                .uri(URI.create("http://localhost:8080/tasks/batch"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertTrue(manager.getAllTasks().isEmpty());
+
+        response = client.send(HttpRequest.newBuilder()
+                .method("DELETE", HttpRequest.BodyPublishers.ofString(ids.toString()))
+                .uri(URI.create("http://localhost:8080/tasks/batch"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(404, response.statusCode());
+
+        response = client.send(HttpRequest.newBuilder()
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"Some name\"}"))
+                .uri(URI.create("http://localhost:8080/tasks/batch"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(400, response.statusCode());
+    }
+
+    @Test
+    public void testConditionalGet() throws IOException, InterruptedException {
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        manager.addTask(task);
+        HttpClient client = HttpClient.newHttpClient();
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+        String lastModified = response.headers().firstValue("Last-Modified").orElseThrow();
+
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("If-None-Match", etag)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, response.statusCode());
+        assertTrue(response.body().isEmpty());
+
+        // в ту же секунду задачу могли изменить еще раз - по дате это не проверить
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("If-Modified-Since", lastModified)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+
+        String nextSecond = DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                ZonedDateTime.parse(lastModified, DateTimeFormatter.RFC_1123_DATE_TIME).plusSeconds(1));
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("If-Modified-Since", nextSecond)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, response.statusCode());
+
+        // другой запрос к тому же списку - другая метка
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks?limit=1"))
+                .header("If-None-Match", etag)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+
+        task.setName("Some new name");
+        manager.updateTask(task);
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks"))
+                .header("If-None-Match", etag)
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        assertNotEquals(etag, response.headers().firstValue("ETag").orElseThrow());
+
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/" + task.getId()))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        response = client.send(HttpRequest.newBuilder()
+                .GET()
+                .uri(URI.create("http://localhost:8080/tasks/" + task.getId()))
+                .header("If-None-Match", response.headers().firstValue("ETag").orElseThrow())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(304, response.statusCode());
+    }
 }
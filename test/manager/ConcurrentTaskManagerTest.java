@@ -0,0 +1,179 @@
+package manager;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import task.Epic;
+import task.Subtask;
+import task.Task;
+import task.TaskStatus;
+import util.ObjectBuilder;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+class ConcurrentTaskManagerTest extends TaskManagerTest<ConcurrentTaskManager> {
+    private static final int THREADS = 8;
+
+    @BeforeEach
+    public void prepareTaskManager() {
+        taskManager = new ConcurrentTaskManager();
+    }
+
+    @Test
+    public void concurrentAddsDoNotLoseTasks() throws Exception {
+        int tasksPerThread = 500;
+        Set<Integer> ids = ConcurrentHashMap.newKeySet();
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < tasksPerThread; i++) {
+                Task task = ObjectBuilder.of(Task::new)
+                        .with(Task::setName, "Task " + thread + "-" + i)
+                        .with(Task::setDescription, "Some description")
+                        .with(Task::setDuration, 30L)
+                        .build();
+                taskManager.addTask(task);
+                ids.add(task.getId());
+            }
+        });
+
+        assertEquals(THREADS * tasksPerThread, ids.size());
+        assertEquals(THREADS * tasksPerThread, taskManager.getAllTasks().size());
+        assertEquals(THREADS * tasksPerThread, InMemoryTaskManager.getLastTaskId());
+    }
+
+    @Test
+    public void concurrentSubtaskChangesKeepEpicConsistent() throws Exception {
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic);
+        int subtasksPerThread = 200;
+        List<List<Subtask>> subtasksByThread = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            subtasksByThread.add(new ArrayList<>());
+        }
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < subtasksPerThread; i++) {
+                Subtask subtask = ObjectBuilder.of(Subtask::new)
+                        .with(Subtask::setName, "Subtask " + thread + "-" + i)
+                        .with(Subtask::setDescription, "Some description")
+                        .with(Subtask::setDuration, 1L)
+                        .with(Subtask::setEpicId, epic.getId())
+                        .build();
+                taskManager.addTask(subtask);
+                subtasksByThread.get(thread).add(subtask);
+            }
+        });
+
+        assertEquals(THREADS * subtasksPerThread, taskManager.getSubtasks(epic.getId()).size());
+        assertEquals(THREADS * subtasksPerThread, epic.getDuration().toMinutes());
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+
+        // каждый поток завершает свои подзадачи, эпик должен увидеть все изменения
+        runConcurrently(thread -> subtasksByThread.get(thread).forEach(subtask -> {
+            subtask.setStatus(TaskStatus.DONE);
+            taskManager.updateTask(subtask);
+        }));
+
+        assertEquals(TaskStatus.DONE, epic.getStatus());
+        assertEquals(THREADS * subtasksPerThread, epic.getSubtaskCount());
+    }
+
+    @Test
+    public void concurrentSchedulingNeverStoresIntersections() throws Exception {
+        LocalDateTime base = LocalDateTime.of(2025, 4, 1, 0, 0);
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < 300; i++) {
+                Task task = ObjectBuilder.of(Task::new)
+                        .with(Task::setName, "Some name")
+                        .with(Task::setDescription, "Some description")
+                        .with(Task::setDuration, 45L)
+                        .with(Task::setStartTime, base.plusMinutes(15L * ThreadLocalRandom.current().nextInt(500)))
+                        .build();
+                taskManager.addTask(task);
+            }
+        });
+
+        List<Task> prioritized = taskManager.getPrioritizedTasks();
+        assertFalse(prioritized.isEmpty());
+        for (int i = 1; i < prioritized.size(); i++) {
+            LocalDateTime previousEnd = prioritized.get(i - 1).getEndTime().orElseThrow();
+            assertFalse(prioritized.get(i).getStartTime().orElseThrow().isBefore(previousEnd));
+        }
+    }
+
+    @Test
+    public void subtasksAreNotOrphanedByConcurrentEpicDelete() throws Exception {
+        List<Epic> epics = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            Epic epic = ObjectBuilder.of(Epic::new)
+                    .with(Epic::setName, "Some name")
+                    .with(Epic::setDescription, "Some description")
+                    .build();
+            taskManager.addTask(epic);
+            epics.add(epic);
+        }
+
+        runConcurrently(thread -> {
+            if (thread == 0) {
+                epics.forEach(epic -> taskManager.deleteTaskById(epic.getId()));
+                return;
+            }
+            for (int i = 0; i < 200; i++) {
+                Epic epic = epics.get(ThreadLocalRandom.current().nextInt(epics.size()));
+                taskManager.addTask(ObjectBuilder.of(Subtask::new)
+                        .with(Subtask::setName, "Some name")
+                        .with(Subtask::setDescription, "Some description")
+                        .with(Subtask::setDuration, 1L)
+                        .with(Subtask::setEpicId, epic.getId())
+                        .build());
+            }
+        });
+
+        assertTrue(taskManager.getTasksByType(Epic.class).isEmpty());
+        assertTrue(taskManager.getTasksByType(Subtask.class).stream()
+                .map(Subtask.class::cast)
+                .noneMatch(subtask -> Objects.isNull(taskManager.getTaskById(subtask.getEpicId(), true))));
+        assertTrue(taskManager.getTasksByType(Subtask.class).isEmpty());
+    }
+
+    private interface ThreadBody {
+        void run(int thread) throws Exception;
+    }
+
+    // все потоки стартуют одновременно, исключения из потоков пробрасываются в тест
+    private static void runConcurrently(ThreadBody body) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    body.run(thread);
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
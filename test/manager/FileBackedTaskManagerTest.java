@@ -6,13 +6,21 @@ import org.junit.jupiter.api.Test;
 import task.Epic;
 import task.Subtask;
 import task.Task;
+import task.TaskStatus;
 import util.ObjectBuilder;
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -35,9 +43,16 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
     }
 
 
+    // загруженный менеджер пишет обратно в прочитанный файл, поэтому тесты работают с копией
+    private static Path copyFileForLoad() throws IOException {
+        Path file = Files.createTempFile("fileForLoad", ".txt");
+        Files.copy(Path.of("test/resources/fileForLoad.txt"), file, StandardCopyOption.REPLACE_EXISTING);
+        return file;
+    }
+
     @Test
     void loadFromFile() throws IOException {
-        Path file = Path.of("test/resources/fileForLoad.txt");
+        Path file = copyFileForLoad();
 
         assertDoesNotThrow(() -> {
             taskManager = FileBackedTaskManager.loadFromFile(file);
@@ -57,6 +72,408 @@ class FileBackedTaskManagerTest extends TaskManagerTest<FileBackedTaskManager> {
         assertArrayEquals(tasksInCsvRAM.toArray(), tasksInCsvFile.toArray());
     }
 
+    @Test
+    void loadedSubtasksAreIndexedByEpic() throws IOException {
+        taskManager = FileBackedTaskManager.loadFromFile(copyFileForLoad());
+
+        assertArrayEquals(new Integer[]{4, 5, 6}, taskManager.getSubtasks(3).stream().map(Task::getId).toArray());
+        assertArrayEquals(new Integer[]{8, 9}, taskManager.getSubtasks(7).stream().map(Task::getId).toArray());
+        assertTrue(taskManager.getSubtasks(1).isEmpty());
+    }
+
+    @Test
+    void loadedTasksArePrioritized() throws IOException {
+        taskManager = FileBackedTaskManager.loadFromFile(copyFileForLoad());
+
+        // подзадача 9 пересекается с задачей 1 и в список не попадает
+        assertArrayEquals(new Integer[]{1, 4, 8, 10, 5},
+                taskManager.getPrioritizedTasks().stream().map(Task::getId).toArray());
+    }
+
+    @Test
+    void loadedManagerUsesGivenHistory() throws IOException {
+        PartitionedHistoryManager history = new PartitionedHistoryManager();
+        taskManager = FileBackedTaskManager.loadFromFile(copyFileForLoad(), new PersistenceConfig(), history);
+
+        taskManager.getTaskById(1);
+
+        assertEquals(1, history.getPartitionCount());
+        assertEquals(List.of(1), taskManager.getHistory().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    void parallelLoadMatchesSequentialLoad() throws IOException {
+        Path file = Files.createTempFile("parallel", ".txt");
+        StringBuilder content = new StringBuilder(taskManager.getCsvHeader()).append("\n");
+        for (int id = 1; id <= 80_000; id++) {
+            if (id % 1000 == 1) {
+                content.append(id).append(",EPIC,Epic ").append(id).append(",NEW,Some description,,,\n");
+            } else if (id % 7 == 0) {
+                // перевод строки и запятая внутри кавычек не должны становиться границей части
+                content.append(id).append(",TASK,\"Task ").append(id).append(",\nвторая строка\",NEW,")
+                        .append("\"Some \"\"quoted\"\" description\",30,,\n");
+            } else {
+                content.append(id).append(",SUBTASK,Subtask ").append(id).append(",DONE,Some description,15,")
+                        .append(id % 3 == 0 ? "01.03.2025 10:00" : "").append(",")
+                        .append(id / 1000 * 1000 + 1).append("\n");
+            }
+        }
+        Files.writeString(file, content.toString());
+
+        FileBackedTaskManager sequential = FileBackedTaskManager.loadFromFile(file,
+                ObjectBuilder.of(PersistenceConfig::new).with(PersistenceConfig::setLoadThreads, 1).build());
+        List<String> expected = sequential.getAllTasks().stream().map(Task::toCsvString).sorted().toList();
+        FileBackedTaskManager parallel = FileBackedTaskManager.loadFromFile(file,
+                ObjectBuilder.of(PersistenceConfig::new).with(PersistenceConfig::setLoadThreads, 4).build());
+
+        assertEquals(80_000, expected.size());
+        assertEquals(expected, parallel.getAllTasks().stream().map(Task::toCsvString).sorted().toList());
+        assertEquals(sequential.getSubtasks(1001).size(), parallel.getSubtasks(1001).size());
+    }
+
+    @Test
+    void quotedFieldsSurviveReload() {
+        Task task1 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Купить молоко, хлеб")
+                .with(Task::setDescription, "Сказать \"спасибо\"\nи уйти")
+                .with(Task::setDuration, 30L)
+                .with(Task::setStartTime, LocalDateTime.of(2025, 3, 9, 7, 5))
+                .build();
+        taskManager.addTask(task1);
+        Epic epic1 = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Эпик, с запятой")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic1);
+        Subtask subtask1 = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "\"Кавычки\"")
+                .with(Subtask::setDescription, "")
+                .with(Subtask::setDuration, 15L)
+                .with(Subtask::setEpicId, epic1.getId())
+                .build();
+        taskManager.addTask(subtask1);
+
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(FileBackedTaskManager.getSourcePath());
+
+        assertEquals(3, loaded.getAllTasks().size());
+        assertEquals(task1.toString(), loaded.getTaskById(task1.getId(), true).toString());
+        assertEquals("Эпик, с запятой", loaded.getTaskById(epic1.getId(), true).getName());
+        Task loadedSubtask = loaded.getTaskById(subtask1.getId(), true);
+        assertEquals(subtask1.toCsvString(), loadedSubtask.toCsvString());
+        assertEquals(epic1.getId(), ((Subtask) loadedSubtask).getEpicId());
+    }
+
+    @Test
+    void binarySnapshotRoundTrip() throws IOException {
+        Path file = Files.createTempFile("binary", ".bin");
+        taskManager = new FileBackedTaskManager(file, ObjectBuilder.of(PersistenceConfig::new)
+                .with(PersistenceConfig::setSnapshotFormat, SnapshotFormat.BINARY)
+                .build());
+        Task task1 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Купить молоко, хлеб")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .with(Task::setStartTime, LocalDateTime.of(1969, 12, 31, 23, 59))
+                .build();
+        taskManager.addTask(task1);
+        Epic epic1 = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic1);
+        Subtask subtask1 = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setStatus, TaskStatus.DONE)
+                .with(Subtask::setDuration, 45L)
+                .with(Subtask::setStartTime, LocalDateTime.of(2025, 4, 1, 10, 0))
+                .with(Subtask::setEpicId, epic1.getId())
+                .build();
+        taskManager.addTask(subtask1);
+        List<String> expected = taskManager.getAllTasks().stream().map(Task::toCsvString).sorted().toList();
+
+        assertTrue(BinarySnapshot.isBinary(file));
+        assertFalse(Files.exists(file.resolveSibling(file.getFileName() + ".tmp")));
+        FileBackedTaskManager loaded = FileBackedTaskManager.loadFromFile(file);
+        assertEquals(expected, loaded.getAllTasks().stream().map(Task::toCsvString).sorted().toList());
+        assertEquals(TaskStatus.DONE, loaded.getTaskById(epic1.getId(), true).getStatus());
+    }
+
+    @Test
+    void snapshotConverterKeepsTasks() throws IOException {
+        Path source = Path.of("test/resources/fileForLoad.txt");
+        Path binary = Files.createTempFile("converted", ".bin");
+        Path csv = Files.createTempFile("converted", ".txt");
+
+        SnapshotConverter.convert(source, binary, SnapshotFormat.BINARY);
+        SnapshotConverter.convert(binary, csv, SnapshotFormat.CSV);
+
+        assertTrue(Files.size(binary) < Files.size(source));
+        assertEquals(Files.readAllLines(source), Files.readAllLines(csv));
+    }
+
+    @Test
+    void corruptedBinaryBlockIsDetected() throws IOException {
+        Path binary = Files.createTempFile("corrupted", ".bin");
+        SnapshotConverter.convert(Path.of("test/resources/fileForLoad.txt"), binary, SnapshotFormat.BINARY);
+        byte[] bytes = Files.readAllBytes(binary);
+        bytes[bytes.length / 2] ^= 0x01;
+        Files.write(binary, bytes);
+
+        assertThrows(IllegalArgumentException.class, () -> BinarySnapshot.read(binary));
+    }
+
+    @Test
+    void truncatedBinarySnapshotIsDetected() throws IOException {
+        Path binary = Files.createTempFile("truncated", ".bin");
+        SnapshotConverter.convert(Path.of("test/resources/fileForLoad.txt"), binary, SnapshotFormat.BINARY);
+        byte[] bytes = Files.readAllBytes(binary);
+
+        // обрыв внутри данных блока, в его CRC и в заголовке блока-терминатора
+        for (int cut : new int[]{bytes.length / 2, 8, 5}) {
+            Files.write(binary, Arrays.copyOf(bytes, bytes.length - cut));
+            IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                    () -> BinarySnapshot.read(binary));
+            assertTrue(e.getMessage().startsWith("Повреждён блок"), e.getMessage());
+        }
+    }
+
+    @Test
+    void journalIsReplayedOverSnapshot() throws IOException {
+        Path file = Files.createTempFile("journal", ".txt");
+        PersistenceConfig config = ObjectBuilder.of(PersistenceConfig::new)
+                .with(PersistenceConfig::setJournalEnabled, true)
+                .with(PersistenceConfig::setSyncPolicy, SyncPolicy.ALWAYS)
+                .with(PersistenceConfig::setCompactionIntervalMillis, 0L)
+                .build();
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, config);
+
+        Task task1 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        journaled.addTask(task1);
+        Epic epic1 = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        journaled.addTask(epic1);
+        Subtask subtask1 = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setEpicId, epic1.getId())
+                .build();
+        journaled.addTask(subtask1);
+        journaled.compact();
+
+        // после снимка изменения попадают только в журнал
+        subtask1.setStatus(TaskStatus.DONE);
+        journaled.updateTask(subtask1);
+        journaled.deleteTaskById(task1.getId());
+        assertEquals(3, Files.readAllLines(file).size() - 1);
+        List<String> expected = journaled.getAllTasks().stream().map(Task::toCsvString).sorted().toList();
+
+        // оборванная при сбое запись не должна ломать восстановление
+        Files.writeString(TaskJournal.getJournalPath(file), "+99,TASK,Torn", StandardOpenOption.APPEND);
+        taskManager = FileBackedTaskManager.loadFromFile(file, config);
+
+        assertEquals(expected, taskManager.getAllTasks().stream().map(Task::toCsvString).sorted().toList());
+        assertEquals(TaskStatus.DONE, taskManager.getTaskById(epic1.getId(), true).getStatus());
+
+        Task task2 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 15L)
+                .build();
+        taskManager.addTask(task2);
+        assertTrue(task2.getId() > subtask1.getId());
+
+        taskManager.close();
+        assertEquals(0, Files.size(TaskJournal.getJournalPath(file)));
+        assertEquals(3, Files.readAllLines(file).size() - 1);
+    }
+
+    @Test
+    void tornJournalTailIsCutBeforeAppend() throws IOException {
+        Path file = Files.createTempFile("journal", ".txt");
+        PersistenceConfig config = ObjectBuilder.of(PersistenceConfig::new)
+                .with(PersistenceConfig::setJournalEnabled, true)
+                .with(PersistenceConfig::setSyncPolicy, SyncPolicy.ALWAYS)
+                .with(PersistenceConfig::setCompactionIntervalMillis, 0L)
+                .build();
+        FileBackedTaskManager journaled = new FileBackedTaskManager(file, config);
+        Task task1 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        journaled.addTask(task1);
+        Files.writeString(TaskJournal.getJournalPath(file), "+99,TASK,Torn", StandardOpenOption.APPEND);
+
+        // после восстановления менеджер снова "падает", не закрыв журнал
+        FileBackedTaskManager recovered = FileBackedTaskManager.loadFromFile(file, config);
+        Task task2 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Other name")
+                .with(Task::setDescription, "Other description")
+                .with(Task::setDuration, 15L)
+                .build();
+        recovered.addTask(task2);
+        taskManager = FileBackedTaskManager.loadFromFile(file, config);
+
+        assertEquals(List.of(task1.getId(), task2.getId()),
+                taskManager.getAllTasks().stream().map(Task::getId).sorted().toList());
+    }
+
+    @Test
+    void groupCommitCoalescesRewrites() throws Exception {
+        Path file = Files.createTempFile("group", ".txt");
+        FileBackedTaskManager grouped = new FileBackedTaskManager(file, ObjectBuilder.of(PersistenceConfig::new)
+                .with(PersistenceConfig::setGroupCommitWindowMillis, 20L)
+                .with(PersistenceConfig::setWaitForDurability, false)
+                .build());
+
+        for (int i = 0; i < 200; i++) {
+            grouped.addTask(ObjectBuilder.of(Task::new)
+                    .with(Task::setName, "Task " + i)
+                    .with(Task::setDescription, "Some description")
+                    .with(Task::setDuration, 30L)
+                    .build());
+        }
+        grouped.close();
+
+        GroupCommitStats stats = grouped.getCommitStats();
+        assertEquals(200, Files.readAllLines(file).size() - 1);
+        assertEquals(200, stats.mutations());
+        assertTrue(stats.commits() < 200);
+    }
+
+    @Test
+    void loadedSnapshotKeepsGroupCommit() throws IOException {
+        Path file = copyFileForLoad();
+        taskManager = FileBackedTaskManager.loadFromFile(file, ObjectBuilder.of(PersistenceConfig::new)
+                .with(PersistenceConfig::setGroupCommitWindowMillis, 10L)
+                .build());
+
+        taskManager.addTask(ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build());
+
+        assertEquals(1, taskManager.getCommitStats().mutations());
+        assertEquals(taskManager.getAllTasks().size(), Files.readAllLines(file).size() - 1);
+    }
+
+    @Test
+    void emptyFileLoadKeepsConfig() throws IOException {
+        Path file = Files.createTempFile("empty", ".bin");
+        taskManager = FileBackedTaskManager.loadFromFile(file, ObjectBuilder.of(PersistenceConfig::new)
+                .with(PersistenceConfig::setSnapshotFormat, SnapshotFormat.BINARY)
+                .with(PersistenceConfig::setGroupCommitWindowMillis, 10L)
+                .build());
+
+        taskManager.addTask(ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build());
+
+        assertEquals(file, FileBackedTaskManager.getSourcePath());
+        assertEquals(1, taskManager.getCommitStats().mutations());
+        assertTrue(BinarySnapshot.isBinary(file));
+        assertEquals(1, BinarySnapshot.read(file).size());
+    }
+
+    @Test
+    void osSyncPolicySkipsFsyncOnGroupCommit() throws IOException {
+        Path file = Files.createTempFile("os-sync", ".txt");
+        FileBackedTaskManager grouped = new FileBackedTaskManager(file, ObjectBuilder.of(PersistenceConfig::new)
+                .with(PersistenceConfig::setJournalEnabled, true)
+                .with(PersistenceConfig::setSyncPolicy, SyncPolicy.OS)
+                .with(PersistenceConfig::setCompactionIntervalMillis, 0L)
+                .with(PersistenceConfig::setGroupCommitWindowMillis, 10L)
+                .build());
+
+        for (int i = 0; i < 5; i++) {
+            grouped.addTask(ObjectBuilder.of(Task::new)
+                    .with(Task::setName, "Task " + i)
+                    .with(Task::setDescription, "Some description")
+                    .with(Task::setDuration, 30L)
+                    .build());
+        }
+
+        // коммиты прошли, но журнал на диск не сбрасывался
+        assertTrue(grouped.getCommitStats().commits() > 0);
+        assertEquals(0, grouped.getJournalSyncCount());
+        grouped.close();
+    }
+
+    @Test
+    void batchIsCommittedOnce() throws Exception {
+        Path file = Files.createTempFile("batch", ".txt");
+        FileBackedTaskManager grouped = new FileBackedTaskManager(file, ObjectBuilder.of(PersistenceConfig::new)
+                .with(PersistenceConfig::setGroupCommitWindowMillis, 10L)
+                .build());
+        List<Task> batch = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            batch.add(ObjectBuilder.of(Task::new)
+                    .with(Task::setName, "Task " + i)
+                    .with(Task::setDescription, "Some description")
+                    .with(Task::setDuration, 30L)
+                    .build());
+        }
+
+        assertTrue(grouped.addTasks(batch).isApplied());
+        assertEquals(100, Files.readAllLines(file).size() - 1);
+        assertTrue(grouped.deleteTasks(batch.subList(0, 50).stream().map(Task::getId).toList()).isApplied());
+        assertEquals(50, Files.readAllLines(file).size() - 1);
+
+        GroupCommitStats stats = grouped.getCommitStats();
+        assertEquals(2, stats.mutations());
+        assertEquals(2, stats.commits());
+        grouped.close();
+    }
+
+    @Test
+    void syncAckWaitsForGroupCommit() throws Exception {
+        Path file = Files.createTempFile("group", ".txt");
+        FileBackedTaskManager grouped = new FileBackedTaskManager(file, ObjectBuilder.of(PersistenceConfig::new)
+                .with(PersistenceConfig::setGroupCommitWindowMillis, 10L)
+                .build());
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                futures.add(executor.submit(() -> {
+                    for (int j = 0; j < 25; j++) {
+                        Task task = ObjectBuilder.of(Task::new)
+                                .with(Task::setName, "Some name")
+                                .with(Task::setDescription, "Some description")
+                                .with(Task::setDuration, 30L)
+                                .build();
+                        grouped.addTask(task);
+                        // после возврата задача уже в файле
+                        assertTrue(Files.readAllLines(file).contains(task.toCsvString()));
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        GroupCommitStats stats = grouped.getCommitStats();
+        assertEquals(200, stats.mutations());
+        assertTrue(stats.commits() < 200);
+        assertTrue(stats.maxBatchSize() > 1);
+        grouped.close();
+    }
+
     @Test
     public void clearTasks() {
         Task task1 = ObjectBuilder.of(Task::new)
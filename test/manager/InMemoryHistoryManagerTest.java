@@ -10,6 +10,7 @@ import task.Task;
 import task.TaskStatus;
 import util.ObjectBuilder;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 class InMemoryHistoryManagerTest extends TaskManagerTest<InMemoryTaskManager> {
@@ -257,4 +258,193 @@ class InMemoryHistoryManagerTest extends TaskManagerTest<InMemoryTaskManager> {
         assertNotEquals(subtaskFromHistory.getStatus(), subtask.getStatus());
         assertNotEquals(subtaskFromHistory.getEpicId(), subtask.getEpicId());
     }
+
+    @Test
+    public void historySharesFrozenSnapshots() {
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic);
+        Subtask subtask1 = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setEpicId, epic.getId())
+                .build();
+        taskManager.addTask(subtask1);
+        taskManager.getTaskById(epic.getId());
+
+        Epic fromHistory = (Epic) taskManager.getHistory().getFirst();
+        assertSame(fromHistory, taskManager.getHistory().getFirst());
+        assertTrue(fromHistory.isFrozen());
+        assertThrows(UnsupportedOperationException.class, fromHistory::recalculate);
+        // снимок помнит число подзадач на момент просмотра
+        assertEquals(1, fromHistory.getSubtaskCount());
+
+        Subtask subtask2 = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setEpicId, epic.getId())
+                .build();
+        taskManager.addTask(subtask2);
+        assertEquals(2, epic.getSubtaskCount());
+        assertEquals(1, fromHistory.getSubtaskCount());
+    }
+
+    @Test
+    public void oldestViewIsEvictedWhenHistoryIsFull() {
+        HistoryConfig config = ObjectBuilder.of(HistoryConfig::new)
+                .with(HistoryConfig::setCapacity, 3)
+                .build();
+        InMemoryHistoryManager hm = new InMemoryHistoryManager(config);
+        List<Task> tasks = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Task task = ObjectBuilder.of(Task::new)
+                    .with(Task::setId, i)
+                    .with(Task::setName, "Some name")
+                    .build();
+            tasks.add(task);
+        }
+        hm.add(tasks.get(0));
+        hm.add(tasks.get(1));
+        hm.add(tasks.get(2));
+        hm.add(tasks.get(0));
+        hm.add(tasks.get(3));
+        hm.add(tasks.get(4));
+
+        assertEquals(List.of(tasks.get(0), tasks.get(3), tasks.get(4)), hm.getHistory());
+        assertEquals(3, hm.historyMap.size());
+        assertEquals(new HistoryStats(3, 2, 0), hm.getStats());
+    }
+
+    @Test
+    public void staleViewsExpire() {
+        long[] now = {0};
+        HistoryConfig config = ObjectBuilder.of(HistoryConfig::new)
+                .with(HistoryConfig::setTtlMillis, 1000L)
+                .build();
+        InMemoryHistoryManager hm = new InMemoryHistoryManager(config, () -> now[0]);
+        Task first = ObjectBuilder.of(Task::new).with(Task::setId, 1).build();
+        Task second = ObjectBuilder.of(Task::new).with(Task::setId, 2).build();
+
+        hm.add(first);
+        now[0] = 600;
+        hm.add(second);
+        now[0] = 1000;
+        assertEquals(List.of(second), hm.getHistory());
+
+        hm.add(second);
+        now[0] = 1999;
+        assertEquals(List.of(second), hm.getHistory());
+        now[0] = 2000;
+        assertTrue(hm.getHistory().isEmpty());
+        assertEquals(new HistoryStats(0, 0, 2), hm.getStats());
+    }
+
+    @Test
+    public void epicRemovalCascadesThroughEpicIndex() {
+        InMemoryHistoryManager hm = new InMemoryHistoryManager();
+        Epic epic = ObjectBuilder.of(Epic::new).with(Epic::setId, 1).build();
+        Subtask first = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setId, 2)
+                .with(Subtask::setEpicId, 1)
+                .build();
+        Subtask moved = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setId, 3)
+                .with(Subtask::setEpicId, 1)
+                .build();
+        Task task = ObjectBuilder.of(Task::new).with(Task::setId, 4).build();
+        hm.add(first);
+        hm.add(moved);
+        hm.add(task);
+        moved.setEpicId(5);
+        hm.add(moved);
+
+        // эпик в истории не просматривался, но его подзадачи все равно удаляются
+        hm.remove(epic.getId());
+        assertEquals(List.of(task, moved), hm.getHistory());
+
+        hm.removeAll(List.of(5, 4));
+        assertTrue(hm.getHistory().isEmpty());
+        assertTrue(hm.historyMap.isEmpty());
+    }
+
+    @Test
+    public void deletedTasksLeaveHistory() {
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic);
+        Subtask subtask = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setEpicId, epic.getId())
+                .build();
+        taskManager.addTask(subtask);
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        taskManager.addTask(task);
+        taskManager.getTaskById(subtask.getId());
+        taskManager.getTaskById(task.getId());
+
+        taskManager.deleteTaskById(epic.getId());
+        assertEquals(List.of(task), taskManager.getHistory());
+
+        taskManager.deleteTasksByType(Task.class);
+        assertTrue(taskManager.getHistory().isEmpty());
+    }
+
+    @Test
+    public void deleteTasksByTypeCleansHistoryOnce() {
+        List<Integer> removedIds = new ArrayList<>();
+        int[] batches = {0};
+        taskManager = new InMemoryTaskManager(new InMemoryHistoryManager() {
+            @Override
+            public synchronized void remove(Integer id) {
+                removedIds.add(id);
+                super.remove(id);
+            }
+
+            @Override
+            public synchronized void removeAll(Collection<Integer> ids) {
+                batches[0]++;
+                super.removeAll(ids);
+            }
+        });
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic);
+        Subtask subtask = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setEpicId, epic.getId())
+                .build();
+        taskManager.addTask(subtask);
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        taskManager.addTask(task);
+        taskManager.getTaskById(subtask.getId());
+        taskManager.getTaskById(task.getId());
+
+        taskManager.deleteTasksByType(Task.class);
+        assertTrue(taskManager.getHistory().isEmpty());
+        assertTrue(taskManager.getAllTasks().isEmpty());
+        // каждая задача убирается из истории один раз, за один проход
+        assertEquals(1, batches[0]);
+        assertEquals(3, removedIds.size());
+        assertEquals(3, removedIds.stream().distinct().count());
+    }
 }
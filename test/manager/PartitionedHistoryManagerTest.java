@@ -0,0 +1,74 @@
+package manager;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import task.Task;
+import util.ObjectBuilder;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedHistoryManagerTest {
+    private final long[] now = {0};
+    private final PartitionedHistoryManager history = new PartitionedHistoryManager(
+            ObjectBuilder.of(HistoryConfig::new)
+                    .with(HistoryConfig::setCapacity, 2)
+                    .with(HistoryConfig::setPartitionIdleMillis, 1000L)
+                    .build(),
+            () -> now[0]);
+
+    @AfterEach
+    public void clearSession() {
+        HistorySession.clear();
+    }
+
+    @Test
+    public void sessionsSeeOnlyTheirOwnViews() {
+        Task first = createTask(1);
+        Task second = createTask(2);
+        Task third = createTask(3);
+
+        HistorySession.set("alice");
+        history.add(first);
+        history.add(second);
+        history.add(third);
+        HistorySession.set("bob");
+        history.add(first);
+
+        assertEquals(List.of(first), history.getHistory());
+        HistorySession.set("alice");
+        assertEquals(List.of(second, third), history.getHistory());
+        HistorySession.clear();
+        assertTrue(history.getHistory().isEmpty());
+        assertEquals(2, history.getPartitionCount());
+
+        history.remove(first.getId());
+        HistorySession.set("bob");
+        assertTrue(history.getHistory().isEmpty());
+    }
+
+    @Test
+    public void idlePartitionsAreEvicted() {
+        HistorySession.set("alice");
+        history.add(createTask(1));
+        HistorySession.set("bob");
+        history.add(createTask(2));
+
+        now[0] = 600;
+        assertEquals(1, history.getHistory().size());
+        now[0] = 1200;
+        history.getHistory();
+
+        assertEquals(1, history.getPartitionCount());
+        assertEquals(1, history.getEvictedPartitionCount());
+        HistorySession.set("alice");
+        assertTrue(history.getHistory().isEmpty());
+    }
+
+    private static Task createTask(int id) {
+        return ObjectBuilder.of(Task::new)
+                .with(Task::setId, id)
+                .with(Task::setName, "Some name")
+                .build();
+    }
+}
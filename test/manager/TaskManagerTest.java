@@ -298,6 +298,42 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertArrayEquals(allSubtasks.toArray(), taskManager.getSubtasks(epic.getId()).toArray());
     }
 
+    @Test
+    public void subtaskMovedToAnotherEpic() {
+        Epic epic1 = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic1);
+        Epic epic2 = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic2);
+        Subtask subtask1 = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setEpicId, epic1.getId())
+                .build();
+        taskManager.addTask(subtask1);
+        subtask1.setStatus(TaskStatus.DONE);
+        taskManager.updateTask(subtask1);
+        assertEquals(TaskStatus.DONE, epic1.getStatus());
+
+        subtask1.setEpicId(epic2.getId());
+        taskManager.updateTask(subtask1);
+        assertTrue(taskManager.getSubtasks(epic1.getId()).isEmpty());
+        assertArrayEquals(new Task[]{subtask1}, taskManager.getSubtasks(epic2.getId()).toArray());
+        assertEquals(TaskStatus.NEW, epic1.getStatus());
+        assertEquals(0, epic1.getDuration().toMinutes());
+        assertEquals(TaskStatus.DONE, epic2.getStatus());
+
+        taskManager.deleteTaskById(subtask1.getId());
+        assertTrue(taskManager.getSubtasks(epic2.getId()).isEmpty());
+        assertEquals(TaskStatus.NEW, epic2.getStatus());
+    }
+
     @Test
     public void clearTasksTest() {
         Epic epic = ObjectBuilder.of(Epic::new)
@@ -533,4 +569,477 @@ public abstract class TaskManagerTest<T extends TaskManager> {
         assertFalse(taskManager.getPrioritizedTasks().contains(st));
         assertFalse(taskManager.getPrioritizedTasks().contains(t));
     }
+
+    @Test
+    public void adjacentTasksAreNotIntersected() {
+        Task task1 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 60L)
+                .with(Task::setStartTime, LocalDateTime.parse("01.04.2025 10:00", Formats.csvDateTimeFormat))
+                .build();
+        Task task2 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 60L)
+                .with(Task::setStartTime, LocalDateTime.parse("01.04.2025 12:00", Formats.csvDateTimeFormat))
+                .build();
+        Task task3 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 60L)
+                .with(Task::setStartTime, LocalDateTime.parse("01.04.2025 11:00", Formats.csvDateTimeFormat))
+                .build();
+        taskManager.addTask(task1);
+        taskManager.addTask(task2);
+        taskManager.addTask(task3);
+        assertArrayEquals(new Task[]{task1, task3, task2}, taskManager.getPrioritizedTasks().toArray());
+
+        // обновление задачи не конфликтует с ее же прежним временем
+        task3.setStartTime(LocalDateTime.parse("01.04.2025 11:30", Formats.csvDateTimeFormat));
+        task3.setDuration(30L);
+        taskManager.updateTask(task3);
+        assertArrayEquals(new Task[]{task1, task3, task2}, taskManager.getPrioritizedTasks().toArray());
+
+        Task intersected = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 60L)
+                .with(Task::setStartTime, LocalDateTime.parse("01.04.2025 10:45", Formats.csvDateTimeFormat))
+                .build();
+        assertEquals(3, taskManager.getPrioritizedTasks().size());
+        assertTrue(((InMemoryTaskManager) taskManager).hasDateIntersect(intersected));
+    }
+
+    @Test
+    public void prioritizedTasksInRange() {
+        Task task1 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 120L)
+                .with(Task::setStartTime, LocalDateTime.parse("01.04.2025 08:00", Formats.csvDateTimeFormat))
+                .build();
+        Task task2 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 60L)
+                .with(Task::setStartTime, LocalDateTime.parse("01.04.2025 11:00", Formats.csvDateTimeFormat))
+                .build();
+        Task task3 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 60L)
+                .with(Task::setStartTime, LocalDateTime.parse("01.04.2025 12:00", Formats.csvDateTimeFormat))
+                .build();
+        taskManager.addTask(task1);
+        taskManager.addTask(task2);
+        taskManager.addTask(task3);
+
+        LocalDateTime from = LocalDateTime.parse("01.04.2025 09:00", Formats.csvDateTimeFormat);
+        LocalDateTime to = LocalDateTime.parse("01.04.2025 12:00", Formats.csvDateTimeFormat);
+        assertArrayEquals(new Task[]{task1, task2}, taskManager.getPrioritizedTasks(from, to).toArray());
+
+        taskManager.deleteTaskById(task1.getId());
+        assertArrayEquals(new Task[]{task2}, taskManager.getPrioritizedTasks(from, to).toArray());
+    }
+
+    @Test
+    public void tasksPageTest() {
+        List<Integer> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Task task = ObjectBuilder.of(Task::new)
+                    .with(Task::setName, "Task " + i)
+                    .with(Task::setDescription, "Some description")
+                    .with(Task::setDuration, 30L)
+                    .build();
+            taskManager.addTask(task);
+            ids.add(task.getId());
+        }
+        taskManager.addTask(ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build());
+
+        TaskPage first = taskManager.getTasksPage(Task.class, null, 2);
+        assertEquals(ids.subList(0, 2), first.tasks().stream().map(Task::getId).toList());
+        assertEquals(ids.get(1), first.nextCursor());
+
+        TaskPage second = taskManager.getTasksPage(Task.class, first.nextCursor(), 2);
+        assertEquals(ids.subList(2, 4), second.tasks().stream().map(Task::getId).toList());
+
+        TaskPage last = taskManager.getTasksPage(Task.class, second.nextCursor(), 2);
+        assertEquals(ids.subList(4, 5), last.tasks().stream().map(Task::getId).toList());
+        assertNull(last.nextCursor());
+
+        taskManager.deleteTaskById(ids.get(2));
+        assertEquals(List.of(ids.get(3), ids.get(4)), taskManager.getTasksPage(Task.class, first.nextCursor(), 2)
+                .tasks().stream().map(Task::getId).toList());
+    }
+
+    @Test
+    public void typeListingsFollowMutations() {
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        taskManager.addTask(task);
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic);
+        Subtask subtask = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setEpicId, epic.getId())
+                .build();
+        taskManager.addTask(subtask);
+
+        task.setName("Some new name");
+        taskManager.updateTask(task);
+        assertEquals(List.of(task), taskManager.getTasksByType(Task.class));
+        assertEquals(List.of(subtask), taskManager.getTasksByType(Subtask.class));
+
+        taskManager.deleteTasksByType(Epic.class);
+        assertTrue(taskManager.getTasksByType(Epic.class).isEmpty());
+        assertTrue(taskManager.getTasksByType(Subtask.class).isEmpty());
+        assertEquals(List.of(task), taskManager.getTasksByType(Task.class));
+    }
+
+    @Test
+    public void findTasksUsesCurrentStatusAndStartTime() {
+        LocalDateTime monday = LocalDateTime.of(2025, 3, 3, 9, 0);
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic);
+        Subtask report = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Report")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setStartTime, monday)
+                .with(Subtask::setEpicId, epic.getId())
+                .build();
+        taskManager.addTask(report);
+        Subtask review = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Review")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setStartTime, monday.plusDays(7))
+                .with(Subtask::setEpicId, epic.getId())
+                .build();
+        taskManager.addTask(review);
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Report draft")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .with(Task::setStartTime, monday.plusDays(1))
+                .build();
+        taskManager.addTask(task);
+
+        report.setStatus(TaskStatus.IN_PROGRESS);
+        taskManager.updateTask(report);
+
+        TaskQuery inProgressSubtasks = ObjectBuilder.of(TaskQuery::new)
+                .with(TaskQuery::setType, Subtask.class)
+                .with(TaskQuery::setStatus, TaskStatus.IN_PROGRESS)
+                .build();
+        assertEquals(List.of(report), taskManager.findTasks(inProgressSubtasks));
+
+        TaskQuery inProgress = ObjectBuilder.of(TaskQuery::new)
+                .with(TaskQuery::setStatus, TaskStatus.IN_PROGRESS)
+                .build();
+        assertEquals(List.of(epic, report), taskManager.findTasks(inProgress));
+
+        TaskQuery week = ObjectBuilder.of(TaskQuery::new)
+                .with(TaskQuery::setFrom, monday)
+                .with(TaskQuery::setTo, monday.plusDays(7))
+                .build();
+        assertEquals(List.of(epic, report, task), taskManager.findTasks(week));
+
+        TaskQuery weekByName = ObjectBuilder.of(TaskQuery::new)
+                .with(TaskQuery::setFrom, monday)
+                .with(TaskQuery::setTo, monday.plusDays(7))
+                .with(TaskQuery::setNamePrefix, "Report")
+                .build();
+        assertEquals(List.of(report, task), taskManager.findTasks(weekByName));
+
+        review.setStartTime(monday.plusDays(2));
+        taskManager.updateTask(review);
+        report.setStatus(TaskStatus.DONE);
+        taskManager.updateTask(report);
+        assertEquals(List.of(epic, report, task, review), taskManager.findTasks(week));
+
+        TaskQuery doneOfEpic = ObjectBuilder.of(TaskQuery::new)
+                .with(TaskQuery::setEpicId, epic.getId())
+                .with(TaskQuery::setStatus, TaskStatus.DONE)
+                .build();
+        assertEquals(List.of(report), taskManager.findTasks(doneOfEpic));
+
+        taskManager.deleteTaskById(epic.getId());
+        assertEquals(List.of(task), taskManager.findTasks(week));
+        assertTrue(taskManager.findTasks(inProgress).isEmpty());
+    }
+
+    @Test
+    public void lookupTaskChecksTypeAndMarksOnlyFoundTasks() {
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        taskManager.addTask(task);
+
+        assertEquals(TaskLookup.Status.WRONG_TYPE, taskManager.lookupTask(task.getId(), Epic.class, true).status());
+        assertEquals(TaskLookup.Status.MISSING, taskManager.lookupTask(task.getId() + 1, Task.class, true).status());
+        assertEquals(task, taskManager.lookupTask(task.getId(), null, false).task());
+        assertTrue(taskManager.getHistory().isEmpty());
+
+        TaskLookup lookup = taskManager.lookupTask(task.getId(), Task.class, true);
+        assertEquals(TaskLookup.Status.FOUND, lookup.status());
+        assertEquals(task, lookup.task());
+        assertEquals(List.of(task), taskManager.getHistory());
+    }
+
+    @Test
+    public void addTasksAppliesBatchAndRecalculatesEpic() {
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic);
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .with(Task::setStartTime, LocalDateTime.of(2025, 1, 1, 10, 0))
+                .build();
+        List<Task> batch = new ArrayList<>(List.of(task));
+        for (int i = 0; i < 3; i++) {
+            batch.add(ObjectBuilder.of(Subtask::new)
+                    .with(Subtask::setName, "Subtask " + i)
+                    .with(Subtask::setDescription, "Some description")
+                    .with(Subtask::setStatus, TaskStatus.DONE)
+                    .with(Subtask::setDuration, 30L)
+                    .with(Subtask::setStartTime, LocalDateTime.of(2025, 1, 1, 11 + i, 0))
+                    .with(Subtask::setEpicId, epic.getId())
+                    .build());
+        }
+
+        BatchResult result = taskManager.addTasks(batch);
+
+        assertTrue(result.isApplied());
+        assertEquals(batch.stream().map(Task::getId).toList(), result.ids());
+        assertEquals(3, taskManager.getSubtasks(epic.getId()).size());
+        Task storedEpic = taskManager.lookupTask(epic.getId(), Epic.class, false).task();
+        assertEquals(TaskStatus.DONE, storedEpic.getStatus());
+        assertEquals(LocalDateTime.of(2025, 1, 1, 11, 0), storedEpic.getStartTime().orElseThrow());
+        assertEquals(4, taskManager.getPrioritizedTasks().size());
+    }
+
+    @Test
+    public void addTasksRejectsWholeBatch() {
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 60L)
+                .with(Task::setStartTime, LocalDateTime.of(2025, 1, 1, 10, 0))
+                .build();
+        taskManager.addTask(task);
+        Task free = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .with(Task::setStartTime, LocalDateTime.of(2025, 1, 1, 12, 0))
+                .build();
+        Task overlapsStored = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .with(Task::setStartTime, LocalDateTime.of(2025, 1, 1, 10, 30))
+                .build();
+        Task overlapsFree = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .with(Task::setStartTime, LocalDateTime.of(2025, 1, 1, 12, 15))
+                .build();
+
+        BatchResult result = taskManager.addTasks(List.of(free, overlapsStored, overlapsFree));
+        assertEquals(BatchResult.Status.CONFLICT, result.status());
+        assertEquals(2, result.errors().size());
+        assertEquals(List.of(task), taskManager.getAllTasks());
+        assertNull(free.getId());
+
+        Subtask orphan = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setEpicId, task.getId())
+                .build();
+        assertEquals(BatchResult.Status.INVALID, taskManager.addTasks(List.of(free, orphan)).status());
+
+        Task unknown = ObjectBuilder.of(Task::new)
+                .with(Task::setId, task.getId() + 100)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        assertEquals(BatchResult.Status.NOT_FOUND, taskManager.addTasks(List.of(free, unknown)).status());
+        assertEquals(List.of(task), taskManager.getAllTasks());
+    }
+
+    @Test
+    public void addTasksLetsBatchTasksSwapTimeSlots() {
+        LocalDateTime first = LocalDateTime.of(2025, 1, 1, 10, 0);
+        LocalDateTime second = LocalDateTime.of(2025, 1, 1, 11, 0);
+        Task task1 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 60L)
+                .with(Task::setStartTime, first)
+                .build();
+        Task task2 = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 60L)
+                .with(Task::setStartTime, second)
+                .build();
+        taskManager.addTask(task1);
+        taskManager.addTask(task2);
+
+        task1.setStartTime(second);
+        task2.setStartTime(first);
+        BatchResult result = taskManager.addTasks(List.of(task1, task2));
+
+        assertTrue(result.isApplied());
+        assertEquals(List.of(task2, task1), taskManager.getPrioritizedTasks());
+    }
+
+    @Test
+    public void deleteTasksRemovesBatchOrNothing() {
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic);
+        List<Subtask> subtasks = new ArrayList<>();
+        for (TaskStatus status : List.of(TaskStatus.NEW, TaskStatus.DONE, TaskStatus.DONE)) {
+            Subtask subtask = ObjectBuilder.of(Subtask::new)
+                    .with(Subtask::setName, "Some name")
+                    .with(Subtask::setDescription, "Some description")
+                    .with(Subtask::setStatus, status)
+                    .with(Subtask::setDuration, 30L)
+                    .with(Subtask::setEpicId, epic.getId())
+                    .build();
+            taskManager.addTask(subtask);
+            subtasks.add(subtask);
+        }
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        taskManager.addTask(task);
+        taskManager.getTaskById(task.getId());
+
+        BatchResult missing = taskManager.deleteTasks(List.of(task.getId(), task.getId() + 100));
+        assertEquals(BatchResult.Status.NOT_FOUND, missing.status());
+        assertEquals(5, taskManager.getAllTasks().size());
+
+        BatchResult result = taskManager.deleteTasks(List.of(task.getId(), subtasks.get(0).getId()));
+        assertTrue(result.isApplied());
+        assertEquals(3, taskManager.getAllTasks().size());
+        assertEquals(TaskStatus.DONE, taskManager.lookupTask(epic.getId(), Epic.class, false).task().getStatus());
+        assertTrue(taskManager.getHistory().isEmpty());
+
+        assertTrue(taskManager.deleteTasks(List.of(epic.getId(), subtasks.get(1).getId())).isApplied());
+        assertTrue(taskManager.getAllTasks().isEmpty());
+    }
+
+    @Test
+    public void versionsFollowMutations() {
+        ResourceVersion tasksVersion = taskManager.getCollectionVersion(Task.class);
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .with(Task::setStartTime, LocalDateTime.of(2025, 1, 1, 10, 0))
+                .build();
+        taskManager.addTask(task);
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic);
+
+        ResourceVersion taskVersion = taskManager.getTaskVersion(task.getId());
+        assertTrue(taskVersion.version() > tasksVersion.version());
+        assertEquals(taskVersion, taskManager.getCollectionVersion(Task.class));
+        assertEquals(taskVersion, taskManager.getPrioritizedVersion());
+        ResourceVersion epicVersion = taskManager.getTaskVersion(epic.getId());
+        ResourceVersion subtasksVersion = taskManager.getSubtasksVersion(epic.getId());
+
+        Subtask subtask = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setEpicId, epic.getId())
+                .build();
+        taskManager.addTask(subtask);
+        // агрегаты эпика пересчитаны - меняется и его версия
+        assertTrue(taskManager.getTaskVersion(epic.getId()).version() > epicVersion.version());
+        assertTrue(taskManager.getSubtasksVersion(epic.getId()).version() > subtasksVersion.version());
+        assertEquals(taskVersion, taskManager.getTaskVersion(task.getId()));
+        assertEquals(taskVersion, taskManager.getCollectionVersion(Task.class));
+
+        subtasksVersion = taskManager.getSubtasksVersion(epic.getId());
+        task.setName("Some new name");
+        taskManager.updateTask(task);
+        assertTrue(taskManager.getTaskVersion(task.getId()).version() > taskVersion.version());
+        assertEquals(subtasksVersion, taskManager.getSubtasksVersion(epic.getId()));
+
+        taskManager.deleteTaskById(subtask.getId());
+        assertTrue(taskManager.getSubtasksVersion(epic.getId()).version() > subtasksVersion.version());
+        assertFalse(taskManager.getPrioritizedTasks().contains(subtask));
+    }
+
+    @Test
+    public void listenersReceiveFrozenSnapshots() {
+        List<TaskEvent> events = new ArrayList<>();
+        TaskListener listener = events::add;
+        taskManager.addTaskListener(listener);
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setName, "Some name")
+                .with(Epic::setDescription, "Some description")
+                .build();
+        taskManager.addTask(epic);
+        Subtask subtask = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setName, "Some name")
+                .with(Subtask::setDescription, "Some description")
+                .with(Subtask::setStatus, TaskStatus.IN_PROGRESS)
+                .with(Subtask::setDuration, 30L)
+                .with(Subtask::setEpicId, epic.getId())
+                .build();
+        taskManager.addTask(subtask);
+        taskManager.deleteTaskById(epic.getId());
+        taskManager.removeTaskListener(listener);
+        taskManager.addTask(ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build());
+
+        assertEquals(List.of(TaskEvent.Type.CREATED, TaskEvent.Type.UPDATED, TaskEvent.Type.CREATED,
+                TaskEvent.Type.DELETED, TaskEvent.Type.DELETED), events.stream().map(TaskEvent::type).toList());
+        assertEquals(List.of(epic, epic, subtask, subtask, epic), events.stream().map(TaskEvent::task).toList());
+        assertEquals(TaskStatus.IN_PROGRESS, events.get(1).task().getStatus());
+        assertTrue(events.stream().allMatch(event -> event.task().isFrozen()));
+        for (int i = 1; i < events.size(); i++) {
+            assertTrue(events.get(i).version() > events.get(i - 1).version());
+        }
+    }
 }
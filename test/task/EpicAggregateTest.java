@@ -0,0 +1,136 @@
+package task;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import util.ObjectBuilder;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+
+class EpicAggregateTest {
+    private static final LocalDateTime BASE_TIME = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+    // случайная последовательность добавлений, изменений и удалений подзадач:
+    // после каждого шага эпик должен совпадать с полным пересчетом по всем подзадачам
+    @ParameterizedTest
+    @ValueSource(longs = {1L, 7L, 42L, 2025L, 31337L})
+    public void incrementalAggregateEqualsFullRecalculation(long seed) {
+        Random random = new Random(seed);
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setId, 1)
+                .with(Epic::setName, "Some name")
+                .build();
+        Map<Integer, Subtask> subtasks = new LinkedHashMap<>();
+        int nextId = 2;
+
+        for (int step = 0; step < 2_000; step++) {
+            int operation = random.nextInt(10);
+            if (subtasks.isEmpty() || operation < 4) {
+                Subtask subtask = randomSubtask(random, nextId++);
+                subtasks.put(subtask.getId(), subtask);
+                epic.putSubtask(subtask);
+            } else if (operation < 8) {
+                Subtask subtask = pick(random, subtasks);
+                // подзадача меняется на месте, как это делают клиенты менеджера
+                Subtask changed = randomSubtask(random, subtask.getId());
+                subtask.setStatus(changed.getStatus());
+                subtask.setDuration(changed.getDuration().toMinutes());
+                subtask.setStartTime(changed.getStartTime().orElse(null));
+                epic.putSubtask(subtask);
+            } else {
+                Subtask subtask = pick(random, subtasks);
+                subtasks.remove(subtask.getId());
+                epic.removeSubtask(subtask.getId());
+            }
+            epic.recalculate();
+
+            List<Subtask> current = new ArrayList<>(subtasks.values());
+            assertEquals(expectedStatus(current), epic.getStatus(), "step " + step);
+            assertEquals(expectedDuration(current), epic.getDuration().toMinutes(), "step " + step);
+            assertEquals(expectedStart(current), epic.getStartTime(), "step " + step);
+            assertEquals(expectedEnd(current), epic.getEndTime(), "step " + step);
+            assertEquals(current.size(), epic.getSubtaskCount());
+        }
+    }
+
+    @Test
+    public void subtaskWithoutStatusCountsAsInProgress() {
+        Epic epic = ObjectBuilder.of(Epic::new)
+                .with(Epic::setId, 1)
+                .with(Epic::setName, "Some name")
+                .build();
+        Subtask subtask = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setId, 2)
+                .with(Subtask::setEpicId, 1)
+                .with(Subtask::setDuration, 30L)
+                .build();
+        subtask.setStatus(null);
+
+        epic.putSubtask(subtask);
+        epic.recalculate();
+        assertEquals(TaskStatus.IN_PROGRESS, epic.getStatus());
+        assertEquals(1, epic.getSubtaskCount());
+
+        epic.removeSubtask(subtask.getId());
+        epic.recalculate();
+        assertEquals(TaskStatus.NEW, epic.getStatus());
+        assertEquals(0, epic.getSubtaskCount());
+    }
+
+    private static Subtask randomSubtask(Random random, int id) {
+        Subtask subtask = ObjectBuilder.of(Subtask::new)
+                .with(Subtask::setId, id)
+                .with(Subtask::setEpicId, 1)
+                .with(Subtask::setStatus, TaskStatus.values()[random.nextInt(TaskStatus.values().length)])
+                .with(Subtask::setDuration, (long) random.nextInt(240))
+                .build();
+        // часть подзадач без даты начала, часть - с совпадающими датами
+        if (random.nextInt(4) != 0) {
+            subtask.setStartTime(BASE_TIME.plusMinutes(30L * random.nextInt(200)));
+        }
+        return subtask;
+    }
+
+    private static Subtask pick(Random random, Map<Integer, Subtask> subtasks) {
+        List<Subtask> values = new ArrayList<>(subtasks.values());
+        return values.get(random.nextInt(values.size()));
+    }
+
+    private static TaskStatus expectedStatus(List<Subtask> subtasks) {
+        if (subtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.NEW)) {
+            return TaskStatus.NEW;
+        } else if (subtasks.stream().allMatch(subtask -> subtask.getStatus() == TaskStatus.DONE)) {
+            return TaskStatus.DONE;
+        }
+        return TaskStatus.IN_PROGRESS;
+    }
+
+    private static long expectedDuration(List<Subtask> subtasks) {
+        return subtasks.stream()
+                .map(subtask -> subtask.getDuration().toMinutes())
+                .reduce(0L, Long::sum);
+    }
+
+    private static Optional<LocalDateTime> expectedStart(List<Subtask> subtasks) {
+        return subtasks.stream()
+                .map(Task::getStartTime)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .min(LocalDateTime::compareTo);
+    }
+
+    private static Optional<LocalDateTime> expectedEnd(List<Subtask> subtasks) {
+        return subtasks.stream()
+                .map(Task::getEndTime)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .max(LocalDateTime::compareTo);
+    }
+}
@@ -40,4 +40,25 @@ public class TaskTest {
         task2.setId(InMemoryTaskManager.getLastTaskId() - 1);
         assertEquals(task1, task2);
     }
+
+    @Test
+    public void snapshotIsFrozenAndItsCloneIsMutable() throws CloneNotSupportedException {
+        Task task = ObjectBuilder.of(Task::new)
+                .with(Task::setName, "Some name")
+                .with(Task::setDescription, "Some description")
+                .with(Task::setDuration, 30L)
+                .build();
+        Task snapshot = task.snapshot();
+
+        assertTrue(snapshot.isFrozen());
+        assertSame(snapshot, snapshot.snapshot());
+        assertThrows(UnsupportedOperationException.class, () -> snapshot.setName("New name"));
+        task.setName("New name");
+        assertEquals("Some name", snapshot.getName());
+
+        Task copy = snapshot.clone();
+        assertFalse(copy.isFrozen());
+        copy.setName("Copy name");
+        assertEquals("Copy name", copy.getName());
+    }
 }